@@ -3,6 +3,7 @@ plugins {
     `maven-publish`
     id("net.kyori.indra")
     id("net.kyori.indra.publishing")
+    id("me.champeau.jmh")
 }
 
 repositories {
@@ -32,6 +33,12 @@ tasks.getByName<Test>("test") {
     useJUnitPlatform()
 }
 
+jmh {
+    jmhVersion.set("1.36")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
 indra {
     github("SkinsRestorer", "axiom") {
         ci(true)
@@ -6,6 +6,7 @@ pluginManagement {
         id("net.kyori.indra") version "3.0.1"
         id("net.kyori.indra.git") version "3.0.1"
         id("net.kyori.indra.publishing") version "3.0.1"
+        id("me.champeau.jmh") version "0.7.1"
     }
 }
 
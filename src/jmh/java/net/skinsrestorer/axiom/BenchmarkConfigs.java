@@ -0,0 +1,49 @@
+package net.skinsrestorer.axiom;
+
+/**
+ * Generates configurations of a given size for the benchmarks.
+ */
+final class BenchmarkConfigs {
+    static final int SECTION_WIDTH = 100;
+    static final String DEEP_PATH = "deep.a.b.c.d.e.f.g";
+
+    private BenchmarkConfigs() {
+    }
+
+    /**
+     * Generates a document with the given number of leaf keys, grouped into sections of {@link #SECTION_WIDTH} keys.
+     * Every tenth key carries an inline comment and a chain of nested sections is reachable through {@link #DEEP_PATH}.
+     */
+    static String generate(int keys) {
+        StringBuilder builder = new StringBuilder(keys * 32);
+        String indent = "";
+        String[] parts = DEEP_PATH.split("\\.");
+        for (int i = 0; i < parts.length; i++) {
+            builder.append(indent).append(parts[i]).append(i == parts.length - 1 ? ": value\n" : ":\n");
+            indent += "  ";
+        }
+
+        for (int section = 0; section < sections(keys); section++) {
+            builder.append("# Section ").append(section).append('\n');
+            builder.append("section").append(section).append(":\n");
+            for (int key = 0; key < SECTION_WIDTH && section * SECTION_WIDTH + key < keys; key++) {
+                builder.append("  key").append(key).append(": value").append(key);
+                if (key % 10 == 0) {
+                    builder.append(" # Comment");
+                }
+                builder.append('\n');
+            }
+        }
+
+        return builder.toString();
+    }
+
+    static int sections(int keys) {
+        return (keys + SECTION_WIDTH - 1) / SECTION_WIDTH;
+    }
+
+    static String lastKey(int keys) {
+        int section = sections(keys) - 1;
+        return "section" + section + ".key" + (keys - 1 - section * SECTION_WIDTH);
+    }
+}
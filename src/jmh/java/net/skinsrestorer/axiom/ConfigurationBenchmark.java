@@ -0,0 +1,92 @@
+package net.skinsrestorer.axiom;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading, updating and saving whole configurations.
+ * Run with {@code ./gradlew jmh}, allocation rates are reported by the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConfigurationBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int keys;
+
+    private String document;
+    private Path file;
+    private Path cacheFile;
+    private AxiomConfiguration config;
+    private ConfigPath lastKey;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        document = BenchmarkConfigs.generate(keys);
+        config = new AxiomConfiguration();
+        config.load(document);
+        lastKey = ConfigPath.of(BenchmarkConfigs.lastKey(keys));
+
+        Path directory = Files.createTempDirectory("axiom-benchmark");
+        file = directory.resolve("config.yml");
+        cacheFile = directory.resolve("config.yml.cache");
+        Files.write(file, document.getBytes(StandardCharsets.UTF_8));
+        config.load(file, cacheFile);
+    }
+
+    @Benchmark
+    public AxiomConfiguration load() throws IOException {
+        AxiomConfiguration loaded = new AxiomConfiguration();
+        loaded.load(document);
+        return loaded;
+    }
+
+    @Benchmark
+    public AxiomConfiguration loadCached() throws IOException {
+        AxiomConfiguration loaded = new AxiomConfiguration();
+        loaded.load(file, cacheFile);
+        return loaded;
+    }
+
+    @Benchmark
+    public AxiomConfiguration loadCompact() throws IOException {
+        AxiomConfiguration loaded = new AxiomConfiguration();
+        loaded.setCompactLoading(true);
+        loaded.load(document);
+        return loaded;
+    }
+
+    @Benchmark
+    public String loadLazyAndLookup() throws IOException {
+        AxiomConfiguration loaded = new AxiomConfiguration();
+        loaded.setLazyLoading(true);
+        loaded.load(document);
+        return loaded.getString(lastKey);
+    }
+
+    @Benchmark
+    public void setExisting() {
+        config.set(lastKey, counter++);
+    }
+
+    @Benchmark
+    public AxiomConfiguration copyAndSet() {
+        AxiomConfiguration copy = config.copy();
+        copy.set(lastKey, counter++);
+        return copy;
+    }
+
+    @Benchmark
+    public String saveToString() {
+        return config.saveToString();
+    }
+}
@@ -0,0 +1,63 @@
+package net.skinsrestorer.axiom;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures node lookups at several depths, both with String paths and with precompiled {@link ConfigPath}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LookupBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int keys;
+
+    @Param({"1", "2", "4", "8"})
+    public int depth;
+
+    private AxiomConfiguration config;
+    private String deepPath;
+    private ConfigPath deepConfigPath;
+    private String widePath;
+    private ConfigPath wideConfigPath;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        config = new AxiomConfiguration();
+        config.load(BenchmarkConfigs.generate(keys));
+
+        String[] parts = BenchmarkConfigs.DEEP_PATH.split("\\.");
+        deepPath = String.join(".", Arrays.copyOf(parts, depth));
+        deepConfigPath = ConfigPath.of(deepPath);
+        widePath = BenchmarkConfigs.lastKey(keys);
+        wideConfigPath = ConfigPath.of(widePath);
+    }
+
+    @Benchmark
+    public Optional<?> getNodeDeep() {
+        return config.getNode(deepPath);
+    }
+
+    @Benchmark
+    public Optional<?> getNodeDeepPrecompiled() {
+        return config.getNode(deepConfigPath);
+    }
+
+    @Benchmark
+    public String getStringWide() {
+        return config.getString(widePath);
+    }
+
+    @Benchmark
+    public String getStringWidePrecompiled() {
+        return config.getString(wideConfigPath);
+    }
+}
@@ -0,0 +1,50 @@
+package net.skinsrestorer.axiom;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures merging a full default configuration into one that only has every other section.
+ * The user configuration is reloaded before every invocation, so only the merge itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MergeBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int keys;
+
+    private String userDocument;
+    private AxiomConfiguration defaults;
+    private AxiomConfiguration config;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        defaults = new AxiomConfiguration();
+        defaults.load(BenchmarkConfigs.generate(keys));
+
+        AxiomConfiguration user = new AxiomConfiguration();
+        user.load(BenchmarkConfigs.generate(keys));
+        for (int section = 0; section < BenchmarkConfigs.sections(keys); section += 2) {
+            user.set("section" + section, null);
+        }
+        userDocument = user.saveToString();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws IOException {
+        config = new AxiomConfiguration();
+        config.load(userDocument);
+    }
+
+    @Benchmark
+    public AxiomConfiguration merge() {
+        config.merge(defaults);
+        return config;
+    }
+}
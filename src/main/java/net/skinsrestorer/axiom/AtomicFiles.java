@@ -0,0 +1,42 @@
+package net.skinsrestorer.axiom;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes files through a temporary file next to them that then replaces them, so a crash never leaves half a file.
+ */
+final class AtomicFiles {
+    private AtomicFiles() {
+    }
+
+    /**
+     * Creates an empty file next to the target.
+     * Unlike {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute[])}, which only lets the owner read it,
+     * the file gets the default permissions of new files, the same ones the target would get if it was written directly.
+     */
+    static Path createTemp(Path target) throws IOException {
+        String prefix = target.getFileName().toString() + ".";
+        while (true) {
+            Path temp = target.resolveSibling(prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.newByteChannel(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+                return temp;
+            } catch (FileAlreadyExistsException ignored) {
+                // Try another name
+            }
+        }
+    }
+
+    /**
+     * Moves the temporary file over the target, atomically if the file system supports it.
+     */
+    static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
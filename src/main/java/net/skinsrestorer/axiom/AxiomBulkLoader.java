@@ -0,0 +1,198 @@
+package net.skinsrestorer.axiom;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads every file of a directory that matches a glob, in parallel on a bounded number of threads.
+ * All configurations share one {@link YamlEngine}, and every thread reuses its read and decode buffers for all files it loads.
+ * A file that can't be loaded is reported as a failure, the other files are loaded regardless.
+ */
+public final class AxiomBulkLoader {
+    private final YamlEngine engine;
+    private final int parallelism;
+
+    /**
+     * @param parallelism the maximum number of files loaded at once
+     */
+    public AxiomBulkLoader(YamlEngine engine, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        this.engine = engine;
+        this.parallelism = parallelism;
+    }
+
+    public AxiomBulkLoader() {
+        this(YamlEngine.get(2, 2), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param glob the pattern file names are matched against, see {@link java.nio.file.FileSystem#getPathMatcher(String)}
+     * @throws IOException if the directory can't be listed or the loading threads are interrupted
+     */
+    public Result load(Path directory, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+
+        AxiomConfiguration[] configurations = new AxiomConfiguration[files.size()];
+        Throwable[] failures = new Throwable[files.size()];
+        AtomicInteger next = new AtomicInteger();
+        int threads = Math.min(parallelism, files.size());
+        if (threads > 0) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "axiom-bulk-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            try {
+                List<Callable<Void>> workers = new ArrayList<>(threads);
+                for (int i = 0; i < threads; i++) {
+                    workers.add(() -> {
+                        new Worker().run(files, next, configurations, failures);
+                        return null;
+                    });
+                }
+                executor.invokeAll(workers);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while loading " + directory);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        Map<Path, AxiomConfiguration> loaded = new LinkedHashMap<>();
+        Map<Path, Throwable> failed = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (configurations[i] != null) {
+                loaded.put(files.get(i), configurations[i]);
+            } else {
+                failed.put(files.get(i), failures[i]);
+            }
+        }
+        return new Result(loaded, failed);
+    }
+
+    /**
+     * Takes files off the shared list until none are left, with buffers that grow to the largest file it has seen.
+     */
+    private class Worker {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        private ByteBuffer bytes = ByteBuffer.allocate(8192);
+        private CharBuffer chars = CharBuffer.allocate(8192);
+
+        private void run(List<Path> files, AtomicInteger next, AxiomConfiguration[] configurations, Throwable[] failures) {
+            int index;
+            while ((index = next.getAndIncrement()) < files.size()) {
+                Path file = files.get(index);
+                try {
+                    AxiomConfiguration configuration = new AxiomConfiguration(engine);
+                    configuration.load(new CharArrayReader(chars.array(), 0, decode(read(file))), file);
+                    configurations[index] = configuration;
+                } catch (Throwable e) {
+                    // Errors like a stack overflow on a deeply nested file belong to that file as well
+                    failures[index] = e;
+                }
+            }
+        }
+
+        private ByteBuffer read(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // One spare byte tells a full read apart from a file that grew while reading it
+                long size = channel.size() + 1;
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("File is too large: " + file);
+                }
+                if (bytes.capacity() < size) {
+                    bytes = ByteBuffer.allocate((int) size);
+                }
+
+                bytes.clear();
+                while (channel.read(bytes) > 0) {
+                    if (!bytes.hasRemaining()) {
+                        ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+                        bytes.flip();
+                        larger.put(bytes);
+                        bytes = larger;
+                    }
+                }
+                bytes.flip();
+                return bytes;
+            }
+        }
+
+        /**
+         * @return the number of decoded characters at the start of the char buffer
+         */
+        private int decode(ByteBuffer input) throws CharacterCodingException {
+            int needed = (int) (input.remaining() * (double) decoder.maxCharsPerByte());
+            if (chars.capacity() < needed) {
+                chars = CharBuffer.allocate(needed);
+            }
+
+            chars.clear();
+            decoder.reset();
+            CoderResult result = decoder.decode(input, chars, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            result = decoder.flush(chars);
+            if (result.isError()) {
+                result.throwException();
+            }
+            return chars.position();
+        }
+    }
+
+    /**
+     * The outcome of a bulk load, both maps are ordered by path.
+     */
+    public static final class Result {
+        private final Map<Path, AxiomConfiguration> configurations;
+        private final Map<Path, Throwable> failures;
+
+        private Result(Map<Path, AxiomConfiguration> configurations, Map<Path, Throwable> failures) {
+            this.configurations = Collections.unmodifiableMap(configurations);
+            this.failures = Collections.unmodifiableMap(failures);
+        }
+
+        public Map<Path, AxiomConfiguration> getConfigurations() {
+            return configurations;
+        }
+
+        /**
+         * @return the files that could not be loaded and why
+         */
+        public Map<Path, Throwable> getFailures() {
+            return failures;
+        }
+    }
+}
@@ -1,52 +1,354 @@
 package net.skinsrestorer.axiom;
 
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.LoaderOptions;
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.constructor.Constructor;
+import org.jetbrains.annotations.Nullable;
 import org.yaml.snakeyaml.nodes.*;
-import org.yaml.snakeyaml.representer.Representer;
 
 import java.io.*;
+import java.lang.ref.WeakReference;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class AxiomConfiguration extends AxiomConfigurationSection{
+    private final Object writeLock = new Object();
+    private final Object saveLock = new Object();
+    private boolean lazyLoading;
+    private boolean compactLoading;
+    @Nullable
+    private AxiomWriteBehind writeBehind;
+    @Nullable
+    private volatile Path syncedPath;
+    private volatile long syncedModCount;
+
     public AxiomConfiguration() {
         this(2, 2);
     }
 
     public AxiomConfiguration(int indent, int indicatorIdent) {
-        super(generateYAML(indent, indicatorIdent), null);
-        rootNode = (MappingNode) yaml.represent(Collections.emptyMap());
+        this(YamlEngine.get(indent, indicatorIdent));
+    }
+
+    /**
+     * Creates a configuration that uses a shared engine, see {@link YamlEngine#get(int, int)}.
+     */
+    public AxiomConfiguration(YamlEngine engine) {
+        super(engine, null);
+        rootNode = (MappingNode) getEngine().represent(Collections.emptyMap());
     }
 
-    private static Yaml generateYAML(int indent, int indicatorIdent) {
-        LoaderOptions loaderOptions = new LoaderOptions();
-        loaderOptions.setProcessComments(true);
-        DumperOptions dumper = new DumperOptions();
-        dumper.setProcessComments(true);
-        dumper.setIndent(indent);
-        dumper.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-        dumper.setIndicatorIndent(indicatorIdent);
-        dumper.setIndentWithIndicator(true);
-        dumper.setDefaultScalarStyle(DumperOptions.ScalarStyle.PLAIN);
-        dumper.setAllowUnicode(true);
-        dumper.setSplitLines(false);
-        Constructor constructor = new Constructor(loaderOptions);
-        Representer representer = new Representer(dumper);
+    //
+    // Concurrency
+    //
 
-        return new Yaml(constructor, representer, dumper, loaderOptions);
+    /**
+     * Switches this configuration to concurrent mode, call this before sharing the configuration between threads.
+     * Readers then work lock-free against the last published tree, which is never mutated.
+     * Every write copies the tree, applies the change and publishes the copy, so batch writes with {@link #update(Consumer)}.
+     * Sections returned by this configuration become read-only views of the snapshot they were taken from.
+     */
+    public void enableConcurrentMode() {
+        context.makeConcurrent();
+    }
+
+    public boolean isConcurrent() {
+        return context.isConcurrent();
+    }
+
+    /**
+     * Applies a batch of changes atomically.
+     * The changes are made on a copy-on-write view of the tree which replaces the current tree once the batch completes,
+     * only the sections that were changed and the sections on the way to them are copied.
+     * Readers keep seeing the previous tree until then, and if the batch throws nothing is published.
+     */
+    public void update(Consumer<AxiomConfigurationSection> changes) {
+        applyBatch(section -> {
+            changes.accept(section);
+            return true;
+        });
+    }
+
+    /**
+     * @param changes returns whether it changed any value, the changed tree is published either way
+     *                but the configuration only counts as modified if it did
+     */
+    private void applyBatch(Predicate<AxiomConfigurationSection> changes) {
+        synchronized (writeLock) {
+            TreeContext workingContext = new TreeContext();
+            workingContext.setMetrics(context.getMetrics());
+            workingContext.share();
+            AxiomConfigurationSection working = new AxiomConfigurationSection(getEngine(), rootNode, workingContext, null, null);
+            boolean modified = changes.test(working);
+            if (context.isShared()) {
+                // Copies and checkpoints still share the parts of the tree the batch didn't change
+                context.shareFrom(workingContext);
+            }
+            publish(working.rootNode, false);
+            if (modified) {
+                context.modified();
+            }
+        }
+    }
+
+    /**
+     * Replaces the tree, the caller counts the modification.
+     *
+     * @param fresh whether no other tree knows the nodes of the new tree, like a tree that was just loaded
+     */
+    private void publish(MappingNode newRoot, boolean fresh) {
+        rootNode = newRoot;
+        context.clear();
+        if (fresh) {
+            context.unshare();
+        }
+    }
+
+    //
+    // Copies and checkpoints
+    //
+
+    /**
+     * Creates a configuration with the same content in constant time.
+     * Both configurations share the tree until one of them changes it, then only the changed sections
+     * and the sections on the way to them are copied. The copy is not in concurrent mode and has no listeners.
+     * <p>
+     * Sharing only covers changes made through configurations and sections, nodes must not be changed directly afterwards.
+     */
+    public AxiomConfiguration copy() {
+        AxiomConfiguration copy = new AxiomConfiguration(getEngine());
+        copy.lazyLoading = lazyLoading;
+        copy.compactLoading = compactLoading;
+        synchronized (writeLock) {
+            // Published snapshots are never changed, so only a tree that is changed in place has to start sharing
+            if (!isConcurrent()) {
+                context.share();
+            }
+            copy.context.share();
+            copy.rootNode = rootNode;
+        }
+        return copy;
+    }
+
+    /**
+     * Remembers the current content, see {@link #rollback(Checkpoint)}.
+     * The tree is shared instead of copied, only the record of sections copied on write so far is copied.
+     */
+    public Checkpoint checkpoint() {
+        synchronized (writeLock) {
+            if (!isConcurrent()) {
+                context.share();
+            }
+            return new Checkpoint(this, rootNode, context.snapshotForwards());
+        }
+    }
+
+    /**
+     * Restores the content of a checkpoint, the checkpoint stays valid and can be restored again.
+     * Sections taken before the checkpoint show its content again, even if they were changed after it,
+     * sections that were taken after it keep showing the discarded content.
+     *
+     * @throws IllegalArgumentException if the checkpoint was taken from another configuration
+     */
+    public void rollback(Checkpoint checkpoint) {
+        if (checkpoint.configuration != this) {
+            throw new IllegalArgumentException("Checkpoint belongs to another configuration");
+        }
+
+        synchronized (writeLock) {
+            if (isConcurrent()) {
+                publish(checkpoint.root, false);
+                context.modified();
+                return;
+            }
+
+            rootNode = checkpoint.root;
+            context.share();
+            context.restoreForwards(checkpoint.forwards);
+            context.modified();
+        }
+    }
+
+    /**
+     * The content of a configuration at some point, the tree is shared with the configuration until it is changed.
+     */
+    public static final class Checkpoint {
+        private final AxiomConfiguration configuration;
+        private final MappingNode root;
+        private final Map<MappingNode, WeakReference<MappingNode>> forwards;
+
+        private Checkpoint(AxiomConfiguration configuration, MappingNode root, Map<MappingNode, WeakReference<MappingNode>> forwards) {
+            this.configuration = configuration;
+            this.root = root;
+            this.forwards = forwards;
+        }
+    }
+
+    @Override
+    public void set(ConfigPath path, Object value) {
+        if (isConcurrent()) {
+            update(section -> section.set(path, value));
+        } else {
+            super.set(path, value);
+        }
+    }
+
+    @Override
+    public void merge(AxiomConfigurationSection defaultConfig, boolean overWriteComments, boolean overWriteInvalid, boolean overWrite) {
+        if (isConcurrent()) {
+            update(section -> section.merge(defaultConfig, overWriteComments, overWriteInvalid, overWrite));
+        } else {
+            super.merge(defaultConfig, overWriteComments, overWriteInvalid, overWrite);
+        }
+    }
+
+    @Override
+    void commit(AxiomEdit edit) {
+        if (isConcurrent()) {
+            update(edit::applyTo);
+        } else {
+            super.commit(edit);
+        }
+    }
+
+    //
+    // Dirty tracking
+    //
+
+    /**
+     * @return whether this configuration was changed since it was last loaded or saved.
+     * Only changes made through the configuration and its sections are tracked, not changes made directly to nodes.
+     */
+    public boolean isDirty() {
+        return context.getModCount() != syncedModCount;
+    }
+
+    private void synced(@Nullable Path path, long modCount) {
+        syncedPath = path;
+        syncedModCount = modCount;
+    }
+
+    /**
+     * @return whether the file already holds this state of the tree or a newer one
+     */
+    private boolean isSynced(Path target, long modCount) {
+        return target.equals(syncedPath) && modCount <= syncedModCount && Files.exists(target);
+    }
+
+    //
+    // Metrics
+    //
+
+    /**
+     * Sets the listener that receives measurements of this configuration and every section taken from it.
+     * Pass null, the default, to measure nothing.
+     */
+    public void setMetricsListener(@Nullable AxiomMetricsListener listener) {
+        context.setMetrics(listener);
+    }
+
+    @Nullable
+    public AxiomMetricsListener getMetricsListener() {
+        return context.getMetrics();
+    }
+
+    private static void reportLoad(AxiomMetricsListener metrics, long start, long characters, MappingNode node) {
+        long duration = System.nanoTime() - start;
+        int[] size = Nodes.measure(node);
+        metrics.loaded(duration, characters, size[0], size[1]);
     }
 
     //
     // Loaders and savers
     //
+
+    /**
+     * In lazy loading mode a load only finds where the top-level sections of the document are,
+     * a section is composed when it is first looked up. Saving writes sections that were never looked up verbatim.
+     * Documents that can't be split into sections, for example because they use aliases, are still loaded eagerly.
+     */
+    public void setLazyLoading(boolean lazyLoading) {
+        this.lazyLoading = lazyLoading;
+    }
+
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
+    /**
+     * In compact loading mode loaded trees are rebuilt to use less memory, for example when many small files are kept loaded.
+     * Marks are dropped and key strings, tags and empty comment lists are shared. The content and how it is saved stay the same,
+     * only {@link AxiomSchema.Violation#getMark()} and other users of marks get null. Lazily loaded trees are not compacted.
+     * Caches written by {@link #load(Path, Path)} keep the marks, so they can be shared with loads that aren't compact.
+     */
+    public void setCompactLoading(boolean compactLoading) {
+        this.compactLoading = compactLoading;
+    }
+
+    public boolean isCompactLoading() {
+        return compactLoading;
+    }
+
     public void load(Path path) throws IOException {
         try (BufferedReader reader = Files.newBufferedReader(path)) {
-            load(reader);
+            load(reader, path);
+        }
+    }
+
+    /**
+     * Loads the content of a file that was already opened, the configuration is then in sync with that file.
+     */
+    void load(Reader reader, Path path) throws IOException {
+        load(reader);
+        synced(path.toAbsolutePath(), context.getModCount());
+    }
+
+    /**
+     * Loads a file through a binary cache of its composed tree.
+     * If the cache was written for the current content of the file it is read instead of parsing the YAML,
+     * otherwise the file is parsed and the cache is written again. The loaded tree is the same either way.
+     *
+     * @param cacheFile where the cache is stored, it is created when missing
+     */
+    public void load(Path path, Path cacheFile) throws IOException {
+        AxiomMetricsListener metrics = context.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        byte[] data = Files.readAllBytes(path);
+        byte[] hash = Hashing.hash(data);
+
+        MappingNode node = NodeCache.read(cacheFile, hash);
+        if (node == null) {
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8)) {
+                node = parse(reader);
+            }
+
+            // The cache keeps the marks, so loads that aren't compact get the same tree as a fresh parse.
+            // Empty documents have no tree to cache, they are parsed again like with load(Path)
+            if (node != null) {
+                try {
+                    NodeCache.write(cacheFile, hash, node);
+                } catch (IOException ignored) {
+                    // The cache is only an optimization, the next load will try again
+                }
+            }
+        }
+        node = compact(node);
+
+        synchronized (writeLock) {
+            publish(node, true);
+            context.modified();
+        }
+        synced(path.toAbsolutePath(), context.getModCount());
+
+        if (metrics != null) {
+            reportLoad(metrics, start, data.length, node);
         }
     }
 
@@ -63,22 +365,325 @@ public class AxiomConfiguration extends AxiomConfigurationSection{
     }
 
     public void load(Reader reader) throws IOException {
+        AxiomMetricsListener metrics = context.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        CountingReader counting = metrics == null ? null : new CountingReader(reader);
+        Reader source = counting == null ? reader : counting;
+
+        MappingNode node = lazyLoading ? composeLazy(source) : compose(source);
+
+        synchronized (writeLock) {
+            publish(node, true);
+            context.modified();
+        }
+        synced(null, context.getModCount());
+
+        if (metrics != null) {
+            reportLoad(metrics, start, counting.count, node);
+        }
+    }
+
+    private MappingNode composeLazy(Reader reader) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            builder.append(buffer, 0, read);
+        }
+
+        String source = builder.toString();
+        MappingNode node = LazyMappingNode.parse(getEngine(), source);
+        return node != null ? node : compose(new StringReader(source));
+    }
+
+    private MappingNode compose(Reader reader) throws IOException {
+        return compact(parse(reader));
+    }
+
+    private MappingNode parse(Reader reader) throws IOException {
         try {
-            rootNode = (MappingNode) yaml.compose(reader);
+            return (MappingNode) getEngine().compose(reader);
         } catch (Exception e) {
             throw new InvalidObjectException("Invalid configuration file");
         }
     }
 
+    private MappingNode compact(MappingNode node) {
+        return compactLoading && node != null ? Nodes.compact(node) : node;
+    }
+
+    //
+    // Reloading
+    //
+    /**
+     * Reloads a file, see {@link #reload(Reader)}. The configuration is then in sync with that file.
+     */
+    public List<String> reload(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            return reload(reader, path);
+        }
+    }
+
+    /**
+     * Reloads the content of a file that was already read, the configuration is then in sync with that file.
+     */
+    List<String> reload(Reader reader, Path path) throws IOException {
+        List<String> changed = reload(reader);
+        synced(path.toAbsolutePath(), context.getModCount());
+        return changed;
+    }
+
+    /**
+     * Loads the configuration again and reconciles it into the current tree instead of replacing it.
+     * Subtrees that did not change keep their identity, so sections taken from them stay valid.
+     *
+     * The configuration only counts as modified if a value changed, see {@link #isDirty()}.
+     *
+     * @return the paths that were added, removed or changed, comment changes are applied but not reported
+     */
+    public List<String> reload(Reader reader) throws IOException {
+        AxiomMetricsListener metrics = context.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        CountingReader counting = metrics == null ? null : new CountingReader(reader);
+
+        MappingNode fresh = compose(counting == null ? reader : counting);
+
+        List<String> changed;
+        if (isConcurrent()) {
+            List<String> updated = new ArrayList<>();
+            applyBatch(section -> updated.addAll(Reconciler.reconcile(section.writableTree(), fresh, section.context)));
+            changed = updated;
+        } else {
+            synchronized (writeLock) {
+                changed = Reconciler.reconcile(writableTree(), fresh, context);
+                if (!changed.isEmpty()) {
+                    context.modified();
+                }
+            }
+        }
+
+        if (metrics != null) {
+            reportLoad(metrics, start, counting.count, fresh);
+        }
+        return changed;
+    }
+
+    /**
+     * Watches a file and reloads this configuration whenever its content changes.
+     * Bursts of file system events are debounced and a reload is skipped if the content hash did not change.
+     * Reloads run on the given executor, pass the thread that owns this configuration unless it is in concurrent mode.
+     *
+     * @param listener receives the paths that changed, see {@link #reload(Reader)}
+     * @return the watcher, close it to stop watching
+     */
+    public AxiomConfigurationWatcher watch(Path path, long debounce, TimeUnit unit, Executor executor, Consumer<List<String>> listener) throws IOException {
+        return new AxiomConfigurationWatcher(this, path, unit.toMillis(debounce), executor, listener);
+    }
+
+    /**
+     * Streams the configuration into a temporary file next to the target, syncs it to disk and then atomically
+     * replaces the target with it. A crash while saving leaves the previous file intact.
+     * <p>
+     * Nothing is written if the configuration was not changed since it was loaded from or saved to the same file,
+     * see {@link #isDirty()}, or if the file already has exactly the content that would be written.
+     */
     public void save(Path path) throws IOException {
-        try (BufferedWriter out = Files.newBufferedWriter(path)) {
-            out.write(saveToString());
+        Path target = path.toAbsolutePath();
+        long modCount = context.getModCount();
+        if (isSynced(target, modCount)) {
+            return;
+        }
+
+        write(rootNode, target, modCount);
+    }
+
+    /**
+     * Saves on the given executor, see {@link #save(Path)}.
+     * Outside of concurrent mode the tree is shared with the save like with {@link #copy()}, so it may be changed again right away.
+     */
+    public CompletableFuture<Void> saveAsync(Path path, Executor executor) {
+        Path target = path.toAbsolutePath();
+        long modCount = context.getModCount();
+        if (isSynced(target, modCount)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Published snapshots are never mutated, anything else has to be copied on write while another thread reads it
+        MappingNode snapshot;
+        synchronized (writeLock) {
+            if (!isConcurrent()) {
+                context.share();
+            }
+            snapshot = rootNode;
         }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                write(snapshot, target, modCount);
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Loads on the given executor, see {@link #load(Path)}.
+     * In concurrent mode readers see the new tree once it is published, otherwise don't use this configuration until the future completes.
+     */
+    public CompletableFuture<Void> loadAsync(Path path, Executor executor) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                load(path);
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Saves this configuration a while after it was changed, so a burst of changes results in a single write.
+     * Saves run on the given executor, the configuration must be in concurrent mode so they can read it while it is changed.
+     *
+     * @return the write-behind, close it to save pending changes and stop
+     * @throws IllegalStateException if the configuration isn't in concurrent mode or already writes behind
+     */
+    public AxiomWriteBehind writeBehind(Path path, long delay, TimeUnit unit, Executor executor) {
+        if (!isConcurrent()) {
+            throw new IllegalStateException("Write-behind requires concurrent mode");
+        }
+
+        synchronized (writeLock) {
+            if (writeBehind != null) {
+                throw new IllegalStateException("This configuration already writes behind to " + writeBehind.getPath());
+            }
+
+            AxiomWriteBehind created = new AxiomWriteBehind(this, path, unit.toMillis(delay), executor);
+            writeBehind = created;
+            context.setModificationListener(created::modified);
+            return created;
+        }
+    }
+
+    void stopWriteBehind(AxiomWriteBehind stopped) {
+        synchronized (writeLock) {
+            if (writeBehind == stopped) {
+                writeBehind = null;
+                context.setModificationListener(null);
+            }
+        }
+    }
+
+    private void write(MappingNode root, Path target, long modCount) throws IOException {
+        synchronized (saveLock) {
+            // An older snapshot must not overwrite a newer one that was saved in the meantime
+            if (isSynced(target, modCount)) {
+                return;
+            }
+
+            writeFile(root, target, modCount);
+        }
+    }
+
+    private void writeFile(MappingNode root, Path target, long modCount) throws IOException {
+        AxiomMetricsListener metrics = context.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        long bytes;
+        Path temp = AtomicFiles.createTemp(target);
+        try {
+            MessageDigest digest = Hashing.newDigest();
+            boolean unchanged;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(new DigestOutputStream(Channels.newOutputStream(channel), digest), StandardCharsets.UTF_8))) {
+                serialize(root, writer);
+                writer.flush();
+                bytes = channel.size();
+
+                unchanged = Files.exists(target) && Files.size(target) == bytes && MessageDigest.isEqual(digest.digest(), Hashing.hash(target));
+                if (!unchanged) {
+                    channel.force(true);
+                }
+            }
+
+            if (unchanged) {
+                // The file already has this content, keep it and its modification time
+                Files.delete(temp);
+            } else {
+                copyPermissions(target, temp);
+                AtomicFiles.replace(temp, target);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        synced(target, modCount);
+
+        if (metrics != null) {
+            metrics.saved(System.nanoTime() - start, bytes);
+        }
+    }
+
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        if (!Files.exists(from) || !FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return;
+        }
+
+        Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
     }
 
     public String saveToString() {
+        AxiomMetricsListener metrics = context.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
         StringWriter writer = new StringWriter();
-        yaml.serialize(rootNode, writer);
-        return writer.toString();
+        try {
+            serialize(rootNode, writer);
+        } catch (IOException e) {
+            // A StringWriter never throws
+            throw new UncheckedIOException(e);
+        }
+
+        String result = writer.toString();
+        if (metrics != null) {
+            metrics.saved(System.nanoTime() - start, result.length());
+        }
+        return result;
+    }
+
+    private void serialize(MappingNode node, Writer writer) throws IOException {
+        if (node instanceof LazyMappingNode) {
+            ((LazyMappingNode) node).write(writer);
+        } else {
+            getEngine().serialize(node, writer);
+        }
+    }
+
+    private static class CountingReader extends FilterReader {
+        private long count;
+
+        private CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
     }
 }
@@ -1,46 +1,111 @@
 package net.skinsrestorer.axiom;
 
-import lombok.AllArgsConstructor;
 import org.jetbrains.annotations.Nullable;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.nodes.*;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-@AllArgsConstructor
 public class AxiomConfigurationSection {
     protected final Yaml yaml;
-    protected MappingNode rootNode;
+    private final YamlEngine engine;
+    protected volatile MappingNode rootNode;
+    final TreeContext context;
+    /**
+     * The section this section was taken from and the path to it, used to copy the way to this section on write.
+     */
+    @Nullable
+    private final AxiomConfigurationSection parent;
+    @Nullable
+    private final ConfigPath pathInParent;
+
+    public AxiomConfigurationSection(YamlEngine engine, MappingNode rootNode) {
+        this(engine, rootNode, new TreeContext(), null, null);
+    }
+
+    public AxiomConfigurationSection(Yaml yaml, MappingNode rootNode) {
+        this(YamlEngine.of(yaml), rootNode);
+    }
+
+    AxiomConfigurationSection(YamlEngine engine, MappingNode rootNode, TreeContext context,
+                              @Nullable AxiomConfigurationSection parent, @Nullable ConfigPath pathInParent) {
+        this.yaml = engine.getYaml();
+        this.engine = engine;
+        this.rootNode = rootNode;
+        this.context = context;
+        this.parent = parent;
+        this.pathInParent = pathInParent;
+    }
+
+    /**
+     * @return the engine used to represent, compose and serialize nodes, prefer it over {@link #yaml}, which is not thread-safe
+     */
+    YamlEngine getEngine() {
+        return engine;
+    }
 
     //
     // Accessors
     //
     public Optional<Node> getNode(String path) {
-        String[] parts = path.split("\\.");
-        AxiomConfigurationSection node = this;
-        int i = 0;
-        for (String part : parts) {
-            Optional<Node> subNode = node.getDirectSubNode(part);
-
-            if (i == parts.length - 1) {
-                return subNode;
-            } else if (subNode.isPresent() && subNode.get() instanceof MappingNode) {
-                node = new AxiomConfigurationSection(yaml, (MappingNode) subNode.get());
-            } else {
-                return Optional.empty();
+        return getNode(ConfigPath.of(path));
+    }
+
+    public Optional<Node> getNode(ConfigPath path) {
+        return Optional.ofNullable(findNode(path));
+    }
+
+    /**
+     * Walks the tree without creating intermediate sections.
+     *
+     * @return the node at the path or null if there is none
+     */
+    @Nullable
+    protected Node findNode(ConfigPath path) {
+        Node node = null;
+        if (path.length() > 0) {
+            MappingNode parent = findMapping(path, path.length() - 1);
+            NodeTuple tuple = parent == null ? null : getDirectTuple(parent, path.last());
+            node = tuple == null ? null : tuple.getValueNode();
+        }
+
+        AxiomMetricsListener metrics = context.getMetrics();
+        if (metrics != null) {
+            metrics.lookup(path, node != null);
+        }
+        return node;
+    }
+
+    /**
+     * @return the mapping node reached by the first {@code depth} parts of the path or null if there is none
+     */
+    @Nullable
+    private MappingNode findMapping(ConfigPath path, int depth) {
+        MappingNode node = root();
+        for (int i = 0; i < depth; i++) {
+            NodeTuple tuple = getDirectTuple(node, path.get(i));
+            if (tuple == null || !(tuple.getValueNode() instanceof MappingNode)) {
+                return null;
             }
 
-            i++;
+            node = (MappingNode) tuple.getValueNode();
         }
 
-        return Optional.empty();
+        return node;
     }
 
     public List<String> getKeys() {
+        MappingNode rootNode = root();
+        if (rootNode instanceof LazyMappingNode) {
+            List<String> lazyKeys = ((LazyMappingNode) rootNode).getKeys();
+            if (lazyKeys != null) {
+                return lazyKeys;
+            }
+        }
+
         List<String> keys = new ArrayList<>();
         for (NodeTuple tuple : rootNode.getValue()) {
             if (tuple.getKeyNode() instanceof ScalarNode) {
@@ -52,225 +117,600 @@ public class AxiomConfigurationSection {
     }
 
     protected Optional<Node> getKeyNodeOfSubNode(String name) {
-        for (NodeTuple tuple : rootNode.getValue()) {
-            if (tuple.getKeyNode() instanceof ScalarNode) {
-                ScalarNode keyNode = (ScalarNode) tuple.getKeyNode();
-                if (keyNode.getValue().equals(name)) {
-                    return Optional.of(keyNode);
+        NodeTuple tuple = getDirectTuple(root(), name);
+        return tuple == null ? Optional.empty() : Optional.of(tuple.getKeyNode());
+    }
+
+    protected Optional<Node> getDirectSubNode(String name) {
+        NodeTuple tuple = getDirectTuple(root(), name);
+        return tuple == null ? Optional.empty() : Optional.ofNullable(tuple.getValueNode());
+    }
+
+    protected void setDirectSubNode(String name, Node setKeyNode, Node setValueNode) {
+        context.checkWritable();
+        MappingNode rootNode = writableRoot();
+        List<NodeTuple> tuples = rootNode.getValue();
+        int position = context.indexOf(rootNode, name);
+        if (position >= 0) {
+            Node keyNode = setKeyNode != null ? setKeyNode : tuples.get(position).getKeyNode();
+            context.invalidateValue(tuples.get(position).getValueNode());
+            tuples.set(position, new NodeTuple(keyNode, setValueNode));
+        } else if (setKeyNode != null) {
+            appendTuple(rootNode, new NodeTuple(setKeyNode, setValueNode));
+        } else {
+            appendTuple(rootNode, createTuple(name, setValueNode));
+        }
+        context.modified();
+    }
+
+    /**
+     * Sections keep pointing at the mapping they were taken from, once it was copied on write they are forwarded to the copy.
+     * That way every section of a path sees the same copy, and a rollback can point them back by forgetting the copies.
+     *
+     * @return the mapping of this section
+     */
+    MappingNode root() {
+        MappingNode node = rootNode;
+        return context.isShared() && !context.owns(node) ? context.forward(node) : node;
+    }
+
+    /**
+     * Makes sure the mapping of this section can be changed without changing a tree it is shared with, see {@link AxiomConfiguration#copy()}.
+     * A shared mapping is copied together with the mappings on the way to it, everything else stays shared.
+     *
+     * @return the mapping of this section that may be changed
+     */
+    MappingNode writableRoot() {
+        MappingNode node = root();
+        if (context.owns(node)) {
+            return node;
+        }
+
+        MappingNode copy = null;
+        if (parent != null) {
+            copy = parent.writableRoot();
+            for (int i = 0; copy != null && i < pathInParent.length(); i++) {
+                int position = context.indexOf(copy, pathInParent.get(i));
+                Node child = position < 0 ? null : copy.getValue().get(position).getValueNode();
+                if (!(child instanceof MappingNode) || i == pathInParent.length() - 1 && child != node) {
+                    // This section was replaced in the tree
+                    copy = null;
+                } else {
+                    copy = writableChild(copy, position);
                 }
             }
         }
-        return Optional.empty();
+
+        if (copy == null) {
+            copy = context.own(node);
+        }
+        if (parent == null) {
+            rootNode = copy;
+        }
+        return copy;
     }
 
-    protected Optional<Node> getDirectSubNode(String name) {
-        for (NodeTuple tuple : rootNode.getValue()) {
-            if (tuple.getKeyNode() instanceof ScalarNode) {
-                ScalarNode keyNode = (ScalarNode) tuple.getKeyNode();
-                if (keyNode.getValue().equals(name)) {
-                    return Optional.ofNullable(tuple.getValueNode());
+    /**
+     * @return the mapping at the position of a writable mapping, copied first if it is shared
+     */
+    MappingNode writableChild(MappingNode node, int position) {
+        NodeTuple tuple = node.getValue().get(position);
+        MappingNode child = (MappingNode) tuple.getValueNode();
+        if (context.owns(child)) {
+            return child;
+        }
+
+        MappingNode copy = context.own(child);
+        node.getValue().set(position, new NodeTuple(tuple.getKeyNode(), copy));
+        return copy;
+    }
+
+    /**
+     * Copies every shared node below this section, for changes that modify nodes in place like merging and reconciling.
+     *
+     * @return the mapping of this section that may be changed down to its leaves
+     */
+    MappingNode writableTree() {
+        MappingNode node = writableRoot();
+        if (context.isShared()) {
+            ownAll(node);
+        }
+        return node;
+    }
+
+    private void ownAll(MappingNode node) {
+        List<NodeTuple> tuples = node.getValue();
+        for (int i = 0; i < tuples.size(); i++) {
+            NodeTuple tuple = tuples.get(i);
+            Node key = tuple.getKeyNode();
+            if (!context.owns(key)) {
+                key = context.adopt(Nodes.copy(key));
+            }
+
+            Node value = tuple.getValueNode();
+            if (value instanceof MappingNode) {
+                if (!context.owns(value)) {
+                    value = context.own((MappingNode) value);
                 }
+                ownAll((MappingNode) value);
+            } else if (!context.owns(value)) {
+                value = context.adopt(Nodes.copy(value));
+            }
+
+            if (key != tuple.getKeyNode() || value != tuple.getValueNode()) {
+                tuples.set(i, new NodeTuple(key, value));
             }
         }
-        return Optional.empty();
     }
 
-    protected void setDirectSubNode(String name, Node setKeyNode, Node setValueNode) {
-        if (rootNode.getValue().stream().map(NodeTuple::getKeyNode).anyMatch(node1 -> node1 instanceof ScalarNode && ((ScalarNode) node1).getValue().equals(name))) {
-            rootNode.getValue().replaceAll(
-                    tuple -> {
-                        if (tuple.getKeyNode() instanceof ScalarNode) {
-                            ScalarNode keyNode = (ScalarNode) tuple.getKeyNode();
-                            if (keyNode.getValue().equals(name)) {
-                                if (setKeyNode != null) {
-                                    return new NodeTuple(setKeyNode, setValueNode);
-                                } else {
-                                    return new NodeTuple(keyNode, setValueNode);
-                                }
-                            }
-                        }
-                        return tuple;
-                    }
-            );
-        } else {
-            if (setKeyNode != null) {
-                rootNode.getValue().add(new NodeTuple(setKeyNode, setValueNode));
-            } else {
-                rootNode.getValue().add(createTuple(name, setValueNode));
+    NodeTuple getDirectTuple(MappingNode node, String name) {
+        if (node instanceof LazyMappingNode && !((LazyMappingNode) node).isMaterialized()) {
+            return ((LazyMappingNode) node).getTuple(name);
+        }
+
+        int position = context.indexOf(node, name);
+        return position >= 0 ? node.getValue().get(position) : null;
+    }
+
+    void appendTuple(MappingNode node, NodeTuple tuple) {
+        node.getValue().add(tuple);
+        context.appended(node, tuple);
+    }
+
+    /**
+     * @return a depth-first cursor over every key below this section, see {@link AxiomCursor}
+     */
+    public AxiomCursor cursor() {
+        return new AxiomCursor(root());
+    }
+
+    /**
+     * Streams every key below this section depth-first, sections come before the keys inside them.
+     * The stream walks the tree as it is consumed, short-circuiting operations stop the walk.
+     *
+     * @return entries of the dot separated path and the value node
+     */
+    public Stream<Map.Entry<String, Node>> deepEntries() {
+        return StreamSupport.stream(new AxiomCursor.EntrySpliterator(cursor()), false);
+    }
+
+    /**
+     * Exports every value below this section in document order. Scalars are mapped to their string value
+     * and sequences to the list of their scalar values, like {@link #getStringList(String)} returns them.
+     * Sections only contribute the values inside them.
+     *
+     * @return a map from dot separated path to value
+     */
+    public Map<String, Object> toFlatMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        AxiomCursor cursor = cursor();
+        while (cursor.next()) {
+            Node node = cursor.getNode();
+            if (node instanceof ScalarNode) {
+                map.put(cursor.getPath(), ((ScalarNode) node).getValue());
+            } else if (node instanceof SequenceNode) {
+                map.put(cursor.getPath(), stringList((SequenceNode) node));
             }
         }
+        return map;
     }
 
     public AxiomConfigurationSection getSection(String path) {
-        Optional<Node> node = getNode(path);
-        if (node.isPresent() && node.get() instanceof MappingNode) {
-            return new AxiomConfigurationSection(yaml, (MappingNode) node.get());
+        return getSection(ConfigPath.of(path));
+    }
+
+    public AxiomConfigurationSection getSection(ConfigPath path) {
+        Node node = findNode(path);
+        if (node instanceof MappingNode) {
+            return new AxiomConfigurationSection(engine, (MappingNode) node, context, this, path);
         } else {
             return null;
         }
     }
 
     public String getString(String path) {
-        Optional<Node> node = getNode(path);
-        if (node.isPresent() && node.get() instanceof ScalarNode) {
-            return ((ScalarNode) node.get()).getValue();
+        return getString(ConfigPath.of(path));
+    }
+
+    public String getString(ConfigPath path) {
+        Node node = findNode(path);
+        if (node instanceof ScalarNode) {
+            return ((ScalarNode) node).getValue();
         } else {
             return null;
         }
     }
 
     public Integer getInt(String path) throws NumberFormatException {
-        String value = getString(path);
-        if (value != null) {
-            return Integer.parseInt(value);
-        } else {
-            return null;
+        return getInt(ConfigPath.of(path));
+    }
+
+    public Integer getInt(ConfigPath path) throws NumberFormatException {
+        Node node = findNode(path);
+        return node instanceof ScalarNode ? intValue((ScalarNode) node) : null;
+    }
+
+    /**
+     * Reads an int without boxing once the value is cached.
+     *
+     * @return the value at the path or the default if there is no scalar at the path
+     * @throws NumberFormatException if the scalar is not an int
+     */
+    public int getInt(String path, int def) throws NumberFormatException {
+        return getInt(ConfigPath.of(path), def);
+    }
+
+    public int getInt(ConfigPath path, int def) throws NumberFormatException {
+        Node node = findNode(path);
+        return node instanceof ScalarNode ? intValue((ScalarNode) node) : def;
+    }
+
+    /**
+     * @return the value at the path or the default if there is no scalar at the path
+     * @throws NumberFormatException if the scalar is not a long
+     */
+    public long getLong(String path, long def) throws NumberFormatException {
+        return getLong(ConfigPath.of(path), def);
+    }
+
+    public long getLong(ConfigPath path, long def) throws NumberFormatException {
+        Node node = findNode(path);
+        if (!(node instanceof ScalarNode)) {
+            return def;
         }
+
+        Object cached = context.getValue(node);
+        if (cached instanceof Long) {
+            return (Long) cached;
+        }
+
+        long value = Long.parseLong(((ScalarNode) node).getValue());
+        context.putValue(node, value);
+        return value;
+    }
+
+    /**
+     * @return the value at the path or the default if there is no scalar at the path
+     * @throws NumberFormatException if the scalar is not a number
+     */
+    public double getDouble(String path, double def) throws NumberFormatException {
+        return getDouble(ConfigPath.of(path), def);
+    }
+
+    public double getDouble(ConfigPath path, double def) throws NumberFormatException {
+        Node node = findNode(path);
+        if (!(node instanceof ScalarNode)) {
+            return def;
+        }
+
+        Object cached = context.getValue(node);
+        if (cached instanceof Double) {
+            return (Double) cached;
+        }
+
+        double value = Double.parseDouble(((ScalarNode) node).getValue());
+        context.putValue(node, value);
+        return value;
     }
 
     public Boolean getBoolean(String path) {
-        String value = getString(path);
-        if (value != null) {
-            return Boolean.parseBoolean(value);
-        } else {
-            return null;
+        return getBoolean(ConfigPath.of(path));
+    }
+
+    public Boolean getBoolean(ConfigPath path) {
+        Node node = findNode(path);
+        return node instanceof ScalarNode ? booleanValue((ScalarNode) node) : null;
+    }
+
+    /**
+     * @return the value at the path or the default if there is no scalar at the path
+     */
+    public boolean getBoolean(String path, boolean def) {
+        return getBoolean(ConfigPath.of(path), def);
+    }
+
+    public boolean getBoolean(ConfigPath path, boolean def) {
+        Node node = findNode(path);
+        return node instanceof ScalarNode ? booleanValue((ScalarNode) node) : def;
+    }
+
+    private Integer intValue(ScalarNode node) {
+        Object cached = context.getValue(node);
+        if (cached instanceof Integer) {
+            return (Integer) cached;
         }
+
+        Integer value = Integer.parseInt(node.getValue());
+        context.putValue(node, value);
+        return value;
+    }
+
+    private Boolean booleanValue(ScalarNode node) {
+        Object cached = context.getValue(node);
+        if (cached instanceof Boolean) {
+            return (Boolean) cached;
+        }
+
+        Boolean value = Boolean.parseBoolean(node.getValue());
+        context.putValue(node, value);
+        return value;
     }
 
     public List<String> getStringList(String path) {
-        Optional<Node> node = getNode(path);
-        if (node.isPresent() && node.get() instanceof SequenceNode) {
-            List<String> list = new ArrayList<>();
-            SequenceNode sequenceNode = (SequenceNode) node.get();
-            for (Node valueNode : sequenceNode.getValue()) {
-                if (valueNode instanceof ScalarNode) {
-                    ScalarNode scalarNode = (ScalarNode) valueNode;
-                    list.add(scalarNode.getValue());
-                }
+        return getStringList(ConfigPath.of(path));
+    }
+
+    /**
+     * @return an unmodifiable list of the scalar values in the sequence or null if there is no sequence at the path
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getStringList(ConfigPath path) {
+        Node node = findNode(path);
+        if (node instanceof SequenceNode) {
+            Object cached = context.getValue(node);
+            if (cached instanceof List) {
+                return (List<String>) cached;
             }
-            return list;
+
+            List<String> value = stringList((SequenceNode) node);
+            context.putValue(node, value);
+            return value;
         } else {
             return null;
         }
     }
 
+    public int[] getIntArray(String path) throws NumberFormatException {
+        return getIntArray(ConfigPath.of(path));
+    }
+
+    /**
+     * Parses the scalar values in the sequence once, later calls return the same array until the sequence is replaced.
+     * The array is shared, callers must not modify it.
+     *
+     * @return the numbers in the sequence or null if there is no sequence at the path
+     * @throws NumberFormatException if a scalar in the sequence is not an int
+     */
+    public int[] getIntArray(ConfigPath path) throws NumberFormatException {
+        Node node = findNode(path);
+        if (!(node instanceof SequenceNode)) {
+            return null;
+        }
+
+        Object cached = context.getValue(node);
+        if (cached instanceof int[]) {
+            return (int[]) cached;
+        }
+
+        List<Node> values = ((SequenceNode) node).getValue();
+        int[] array = new int[values.size()];
+        int size = 0;
+        for (Node valueNode : values) {
+            if (valueNode instanceof ScalarNode) {
+                array[size++] = Integer.parseInt(((ScalarNode) valueNode).getValue());
+            }
+        }
+
+        int[] value = size == array.length ? array : Arrays.copyOf(array, size);
+        context.putValue(node, value);
+        return value;
+    }
+
+    public long[] getLongArray(String path) throws NumberFormatException {
+        return getLongArray(ConfigPath.of(path));
+    }
+
+    /**
+     * Like {@link #getIntArray(ConfigPath)}, the array is shared and must not be modified.
+     *
+     * @return the numbers in the sequence or null if there is no sequence at the path
+     * @throws NumberFormatException if a scalar in the sequence is not a long
+     */
+    public long[] getLongArray(ConfigPath path) throws NumberFormatException {
+        Node node = findNode(path);
+        if (!(node instanceof SequenceNode)) {
+            return null;
+        }
+
+        Object cached = context.getValue(node);
+        if (cached instanceof long[]) {
+            return (long[]) cached;
+        }
+
+        List<Node> values = ((SequenceNode) node).getValue();
+        long[] array = new long[values.size()];
+        int size = 0;
+        for (Node valueNode : values) {
+            if (valueNode instanceof ScalarNode) {
+                array[size++] = Long.parseLong(((ScalarNode) valueNode).getValue());
+            }
+        }
+
+        long[] value = size == array.length ? array : Arrays.copyOf(array, size);
+        context.putValue(node, value);
+        return value;
+    }
+
+    public double[] getDoubleArray(String path) throws NumberFormatException {
+        return getDoubleArray(ConfigPath.of(path));
+    }
+
+    /**
+     * Like {@link #getIntArray(ConfigPath)}, the array is shared and must not be modified.
+     *
+     * @return the numbers in the sequence or null if there is no sequence at the path
+     * @throws NumberFormatException if a scalar in the sequence is not a number
+     */
+    public double[] getDoubleArray(ConfigPath path) throws NumberFormatException {
+        Node node = findNode(path);
+        if (!(node instanceof SequenceNode)) {
+            return null;
+        }
+
+        Object cached = context.getValue(node);
+        if (cached instanceof double[]) {
+            return (double[]) cached;
+        }
+
+        List<Node> values = ((SequenceNode) node).getValue();
+        double[] array = new double[values.size()];
+        int size = 0;
+        for (Node valueNode : values) {
+            if (valueNode instanceof ScalarNode) {
+                array[size++] = Double.parseDouble(((ScalarNode) valueNode).getValue());
+            }
+        }
+
+        double[] value = size == array.length ? array : Arrays.copyOf(array, size);
+        context.putValue(node, value);
+        return value;
+    }
+
+    static List<String> stringList(SequenceNode sequenceNode) {
+        List<String> list = new ArrayList<>();
+        for (Node valueNode : sequenceNode.getValue()) {
+            if (valueNode instanceof ScalarNode) {
+                ScalarNode scalarNode = (ScalarNode) valueNode;
+                list.add(scalarNode.getValue());
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
     public void set(String path, Object value) {
-        String[] parts = path.split("\\.");
-        String target = parts[parts.length - 1];
-        String parentPath = path.substring(0, path.length() - target.length());
+        set(ConfigPath.of(path), value);
+    }
+
+    public void set(ConfigPath path, Object value) {
+        context.checkWritable();
+        String target = path.last();
 
         NodeTuple keyNode = null;
-        Optional<Node> parentNode = getNode(parentPath);
-        if (parentNode.isPresent() && parentNode.get() instanceof MappingNode) {
-            MappingNode mappingNode = (MappingNode) parentNode.get();
-            for (NodeTuple tuple : mappingNode.getValue()) {
-                if (tuple.getKeyNode() instanceof ScalarNode) {
-                    ScalarNode scalarKeyNode = (ScalarNode) tuple.getKeyNode();
-                    if (scalarKeyNode.getValue().equals(target)) {
-                        keyNode = tuple;
-                    }
-                }
-            }
+        MappingNode parentNode = findMapping(path, path.length() - 1);
+        if (parentNode != null) {
+            keyNode = getDirectTuple(parentNode, target);
         }
 
         set(path, value == null ? null : createTuple(target, value, keyNode));
     }
 
-    private void set(String path, NodeTuple value) {
-        String[] parts = path.split("\\.");
+    private void set(ConfigPath path, NodeTuple value) {
         try {
-            MappingNode node = rootNode;
-            int i = 0;
-            for (String part : parts) {
-                if (i < parts.length - 1) {
-                    Optional<NodeTuple> optionalTuple = node.getValue().stream().filter(tuple -> {
-                        if (tuple.getKeyNode() instanceof ScalarNode) {
-                            ScalarNode scalarKeyNode = (ScalarNode) tuple.getKeyNode();
-                            return scalarKeyNode.getValue().equals(part);
-                        }
-                        return false;
-                    }).findFirst();
-
-                    if (optionalTuple.isPresent()) {
-                        if (optionalTuple.get().getValueNode() instanceof MappingNode) {
-                            node = (MappingNode) optionalTuple.get().getValueNode();
+            MappingNode node = writableRoot();
+            for (int i = 0; i < path.length(); i++) {
+                String part = path.get(i);
+                if (i < path.length() - 1) {
+                    NodeTuple tuple = getDirectTuple(node, part);
+
+                    if (tuple != null) {
+                        if (tuple.getValueNode() instanceof MappingNode) {
+                            MappingNode child = (MappingNode) tuple.getValueNode();
+                            node = context.owns(child) ? child : writableChild(node, context.indexOf(node, part));
                         } else {
                             throw new Exception("Invalid node type");
                         }
                     } else {
-                        MappingNode newMapping = (MappingNode) yaml.represent(Collections.emptyMap());
-                        node.getValue().add(createTuple(part, newMapping));
+                        MappingNode newMapping = newMapping();
+                        appendTuple(node, createTuple(part, newMapping));
                         node = newMapping;
                     }
                 } else {
+                    int position = context.indexOf(node, part);
                     if (value != null) {
-                        if (node.getValue().stream().anyMatch(nodeTuple -> {
-                            if (nodeTuple.getKeyNode() instanceof ScalarNode) {
-                                ScalarNode scalarKeyNode = (ScalarNode) nodeTuple.getKeyNode();
-                                return scalarKeyNode.getValue().equals(part);
-                            }
-                            return false;
-                        })) {
-                            node.getValue().replaceAll(nodeTuple -> {
-                                if (nodeTuple.getKeyNode() instanceof ScalarNode) {
-                                    ScalarNode scalarKeyNode = (ScalarNode) nodeTuple.getKeyNode();
-                                    if (scalarKeyNode.getValue().equals(part)) {
-                                        setComments(value.getKeyNode(), nodeTuple.getKeyNode(), false);
-                                        setComments(value.getValueNode(), nodeTuple.getValueNode(), false);
-                                        return value;
-                                    }
-                                }
-                                return nodeTuple;
-                            });
+                        if (position >= 0) {
+                            NodeTuple nodeTuple = node.getValue().get(position);
+                            setComments(value.getKeyNode(), nodeTuple.getKeyNode(), false);
+                            setComments(value.getValueNode(), nodeTuple.getValueNode(), false);
+                            context.invalidateValue(nodeTuple.getValueNode());
+                            node.getValue().set(position, value);
                         } else {
-                            node.getValue().add(value);
+                            appendTuple(node, value);
                         }
-                    } else {
-                        node.getValue().removeIf(tuple -> {
-                            if (tuple.getKeyNode() instanceof ScalarNode) {
-                                ScalarNode scalarKeyNode = (ScalarNode) tuple.getKeyNode();
-                                return scalarKeyNode.getValue().equals(part);
-                            }
-                            return false;
-                        });
+                    } else if (position >= 0) {
+                        context.invalidateValue(node.getValue().get(position).getValueNode());
+                        node.getValue().removeIf(tuple -> part.equals(KeyIndex.keyOf(tuple)));
+                        context.invalidate(node);
                     }
                 }
-
-                i++;
             }
+            context.modified();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Creates an object of the given class from this section in a single pass over its keys.
+     * The class is inspected once, keys map to fields of the same name or to the components of a record.
+     * Nested classes are bound from subsections, see {@link BindingPlan} for the supported types.
+     *
+     * @throws IllegalArgumentException if the class can't be bound
+     */
+    public <T> T bind(Class<T> type) {
+        return type.cast(BindingPlan.of(type).bind(root()));
+    }
+
+    /**
+     * Sets the fields of an existing object from this section, for example after a reload.
+     * Fields without a key in this section keep their value.
+     *
+     * @throws IllegalArgumentException if the class of the object can't be bound or is a record
+     */
+    public <T> T bindTo(T target) {
+        BindingPlan.of(target.getClass()).bindTo(target, root());
+        return target;
+    }
+
+    /**
+     * Compares this section with another one, see {@link AxiomDiff}.
+     *
+     * @return the changes that turn this section into the other one
+     */
+    public AxiomDiff diff(AxiomConfigurationSection other) {
+        return AxiomDiff.between(this, other);
+    }
+
+    /**
+     * Checks this section against a schema, see {@link AxiomSchema}.
+     *
+     * @return every violation, an empty list if this section matches the schema
+     */
+    public List<AxiomSchema.Violation> validate(AxiomSchema schema) {
+        return schema.validate(this);
+    }
+
+    /**
+     * Starts a batch of changes that is applied in a single pass with {@link AxiomEdit#commit()}.
+     */
+    public AxiomEdit edit() {
+        return new AxiomEdit(this);
+    }
+
+    void commit(AxiomEdit edit) {
+        context.checkWritable();
+        edit.applyTo(this);
+        context.modified();
+    }
+
+    MappingNode newMapping() {
+        return context.adopt((MappingNode) engine.represent(Collections.emptyMap()));
+    }
+
     public void merge(AxiomConfigurationSection defaultConfig) {
         merge(defaultConfig, false, true, false);
     }
 
     public void merge(AxiomConfigurationSection defaultConfig, boolean overWriteComments, boolean overWriteInvalid, boolean overWrite) {
-        setComments(rootNode, defaultConfig.rootNode, overWriteComments);
-
-        for (String key : defaultConfig.getKeys()) {
-            Node defaultNode = defaultConfig.getDirectSubNode(key).orElseThrow(() -> new IllegalStateException("Node not found"));
-            Node defaultParentNode = defaultConfig.getKeyNodeOfSubNode(key).orElseThrow(() -> new IllegalStateException("Node not found"));
-            Optional<Node> currentNode = getDirectSubNode(key);
-
-            if (!currentNode.isPresent() || overWrite) {
-                setDirectSubNode(key, defaultParentNode, defaultNode);
-            } else {
-                setComments(currentNode.get(), defaultNode, overWriteComments);
-
-                if (defaultNode instanceof MappingNode) {
-                    if (currentNode.get() instanceof MappingNode) {
-                        AxiomConfigurationSection childDefaultSection = new AxiomConfigurationSection(yaml, (MappingNode) defaultNode);
-                        AxiomConfigurationSection childCurrentSection = new AxiomConfigurationSection(yaml, (MappingNode) currentNode.get());
-
-                        childCurrentSection.merge(childDefaultSection, overWriteComments, overWriteInvalid, false);
-                    } else if (overWriteInvalid) {
-                        setDirectSubNode(key, defaultParentNode, defaultNode);
-                    }
-                }
-            }
+        context.checkWritable();
+        AxiomMetricsListener metrics = context.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+
+        MergeTask.merge(writableTree(), defaultConfig.root(), overWriteComments, overWriteInvalid, overWrite);
+        context.modified();
+
+        if (metrics != null) {
+            int[] size = Nodes.measure(defaultConfig.root());
+            metrics.merged(System.nanoTime() - start, size[0], size[1]);
         }
     }
 
@@ -294,24 +734,14 @@ public class AxiomConfigurationSection {
 
     private NodeTuple createTuple(Node key, Object value, @Nullable NodeTuple previousTuple) {
         if (value instanceof String) {
-            Optional<Number> optionalNumber = parseNumber((String) value);
-
-            if (optionalNumber.isPresent()) {
-                value = optionalNumber.get();
-            } else {
-				Optional<Boolean> optionalBoolean = parseBoolean((String) value);
-
-				if (optionalBoolean.isPresent()) {
-					value = optionalBoolean.get();
-				}
-			}
+            value = ScalarClassifier.classify((String) value);
         }
 
-        return createTuple(key, yaml.represent(value), previousTuple);
+        return createTuple(key, engine.represent(value), previousTuple);
     }
 
-    private NodeTuple createTuple(Object key, Node value) {
-        return createTuple(yaml.represent(key), value, null);
+    NodeTuple createTuple(Object key, Node value) {
+        return createTuple(engine.represent(key), value, null);
     }
 
     private NodeTuple createTuple(Node key, Node value, @Nullable NodeTuple previousTuple) {
@@ -342,39 +772,7 @@ public class AxiomConfigurationSection {
         return new NodeTuple(key, value);
     }
 
-    private NodeTuple createTuple(Object key, Object value, @Nullable NodeTuple previousTuple) {
-        return createTuple(yaml.represent(key), value, previousTuple);
-    }
-
-    private static Optional<Number> parseNumber(String str) {
-        try {
-            if (str != null && !str.isEmpty()) {
-                str = str.trim();
-                if (str.matches("[+-]?\\d+")) {
-                    return Optional.of(Integer.parseInt(str));
-                } else if (str.matches("[+-]?\\d+\\.\\d+")) {
-                    return Optional.of(Double.parseDouble(str));
-                } else if (str.matches("[+-]?\\d+\\.\\d+[eE][+-]?\\d+")) {
-                    return Optional.of(Double.parseDouble(str));
-                }
-            }
-
-            return Optional.empty();
-        } catch (NumberFormatException ex) {
-            return Optional.empty();
-        }
-    }
-
-    private static Optional<Boolean> parseBoolean(String str) {
-        if (str != null && !str.isEmpty()) {
-            str = str.trim();
-            if (str.matches("true")) {
-                return Optional.of(true);
-            } else if (str.matches("false")) {
-                return Optional.of(false);
-            }
-        }
-
-        return Optional.empty();
+    NodeTuple createTuple(Object key, Object value, @Nullable NodeTuple previousTuple) {
+        return createTuple(engine.represent(key), value, previousTuple);
     }
 }
@@ -0,0 +1,127 @@
+package net.skinsrestorer.axiom;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Watches a configuration file and reconciles changes into an {@link AxiomConfiguration}.
+ * Created with {@link AxiomConfiguration#watch(Path, long, TimeUnit, Executor, Consumer)}.
+ */
+public final class AxiomConfigurationWatcher implements Closeable {
+    private final AxiomConfiguration config;
+    private final Path path;
+    private final long debounceMillis;
+    private final Executor executor;
+    private final Consumer<List<String>> listener;
+    private final WatchService watchService;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> pending;
+    private byte[] lastHash;
+    private volatile boolean closed;
+
+    AxiomConfigurationWatcher(AxiomConfiguration config, Path path, long debounceMillis, Executor executor, Consumer<List<String>> listener) throws IOException {
+        this.config = config;
+        this.path = path.toAbsolutePath();
+        this.debounceMillis = debounceMillis;
+        this.executor = executor;
+        this.listener = listener;
+        this.lastHash = Files.exists(this.path) ? Hashing.hash(Files.readAllBytes(this.path)) : null;
+
+        this.watchService = this.path.getFileSystem().newWatchService();
+        this.path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        String name = "axiom-watcher-" + this.path.getFileName();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Thread thread = new Thread(this::watch, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || path.getFileName().equals(event.context())) {
+                    schedule();
+                }
+            }
+
+            if (!key.reset()) {
+                return;
+            }
+        }
+    }
+
+    private synchronized void schedule() {
+        if (closed) {
+            return;
+        }
+
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = scheduler.schedule(this::check, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs on the scheduler thread once the file was quiet for the debounce time.
+     */
+    private void check() {
+        byte[] content;
+        try {
+            if (!Files.exists(path)) {
+                return;
+            }
+            content = Files.readAllBytes(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        byte[] hash = Hashing.hash(content);
+        if (Arrays.equals(hash, lastHash)) {
+            return;
+        }
+        lastHash = hash;
+
+        executor.execute(() -> {
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)) {
+                List<String> changed = config.reload(reader, path);
+                if (!changed.isEmpty()) {
+                    listener.accept(changed);
+                }
+            } catch (IOException e) {
+                // Usually a half written file, the next write triggers another reload
+                e.printStackTrace();
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (this) {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+        scheduler.shutdownNow();
+        watchService.close();
+    }
+}
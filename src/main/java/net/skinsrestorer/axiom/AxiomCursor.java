@@ -0,0 +1,171 @@
+package net.skinsrestorer.axiom;
+
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A depth-first cursor over every key below a section, visiting a section before the keys inside it.
+ * The cursor keeps one iterator per open mapping and builds the dot separated path in a single buffer,
+ * so walking the tree allocates nothing but the path strings that are actually asked for.
+ * Tuples with keys that aren't scalars are skipped, just like {@link AxiomConfigurationSection#getKeys()} does.
+ * <p>
+ * The cursor reads the nodes it walks directly and must not be used while the tree is being changed,
+ * in concurrent mode it walks the snapshot that was published when it was created.
+ */
+public final class AxiomCursor {
+    private final StringBuilder path = new StringBuilder();
+    private Iterator<?>[] iterators = new Iterator<?>[8];
+    private int[] pathLengths = new int[8];
+    private int depth;
+    private String key;
+    private Node node;
+    private String pathString;
+    private boolean descend;
+
+    AxiomCursor(MappingNode root) {
+        iterators[0] = root.getValue().iterator();
+    }
+
+    /**
+     * Moves to the next key.
+     *
+     * @return false if every key was visited
+     */
+    public boolean next() {
+        if (descend) {
+            // Descend into the section the cursor is on
+            if (++depth == iterators.length) {
+                iterators = Arrays.copyOf(iterators, depth * 2);
+                pathLengths = Arrays.copyOf(pathLengths, depth * 2);
+            }
+            iterators[depth] = ((MappingNode) node).getValue().iterator();
+            pathLengths[depth] = path.length();
+        }
+
+        while (depth >= 0) {
+            Iterator<?> iterator = iterators[depth];
+            while (iterator.hasNext()) {
+                NodeTuple tuple = (NodeTuple) iterator.next();
+                String tupleKey = KeyIndex.keyOf(tuple);
+                if (tupleKey == null) {
+                    continue;
+                }
+
+                path.setLength(pathLengths[depth]);
+                if (depth > 0) {
+                    path.append('.');
+                }
+                path.append(tupleKey);
+                key = tupleKey;
+                node = tuple.getValueNode();
+                pathString = null;
+                descend = node instanceof MappingNode;
+                return true;
+            }
+
+            iterators[depth--] = null;
+        }
+
+        key = null;
+        node = null;
+        pathString = null;
+        descend = false;
+        return false;
+    }
+
+    /**
+     * @return the path of the current key relative to the section the cursor was created on
+     */
+    public String getPath() {
+        checkPosition();
+        if (pathString == null) {
+            pathString = path.toString();
+        }
+        return pathString;
+    }
+
+    /**
+     * @return the last part of the path
+     */
+    public String getKey() {
+        checkPosition();
+        return key;
+    }
+
+    public Node getNode() {
+        checkPosition();
+        return node;
+    }
+
+    /**
+     * @return the number of sections between the current key and the section the cursor was created on, zero for direct keys
+     */
+    public int getDepth() {
+        checkPosition();
+        return depth;
+    }
+
+    public boolean isSection() {
+        checkPosition();
+        return node instanceof MappingNode;
+    }
+
+    /**
+     * Skips the keys inside the current section, the next call to {@link #next()} moves to the key after it.
+     */
+    public void skipChildren() {
+        checkPosition();
+        descend = false;
+    }
+
+    private void checkPosition() {
+        if (key == null) {
+            throw new NoSuchElementException("The cursor is not on a key");
+        }
+    }
+
+    /**
+     * Splits nothing, a tree walk is sequential. Stopping early, for example with {@code findFirst}, stops the walk.
+     */
+    static final class EntrySpliterator implements Spliterator<Map.Entry<String, Node>> {
+        private final AxiomCursor cursor;
+
+        EntrySpliterator(AxiomCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<String, Node>> action) {
+            if (!cursor.next()) {
+                return false;
+            }
+
+            action.accept(new AbstractMap.SimpleImmutableEntry<>(cursor.getPath(), cursor.node));
+            return true;
+        }
+
+        @Override
+        public Spliterator<Map.Entry<String, Node>> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package net.skinsrestorer.axiom;
+
+import org.yaml.snakeyaml.comments.CommentLine;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+
+import java.util.*;
+
+/**
+ * Structural difference between two configuration trees.
+ * Both trees are walked at once and siblings are matched by key through a hash map,
+ * so computing a diff takes time linear in the size of the trees.
+ * Paths of nested sections are reported by their leaves, a section that only exists on one side is reported as a whole.
+ */
+public final class AxiomDiff {
+    private final List<String> added = new ArrayList<>();
+    private final List<String> removed = new ArrayList<>();
+    private final List<String> changed = new ArrayList<>();
+    private final List<String> commentsChanged = new ArrayList<>();
+
+    private AxiomDiff() {
+    }
+
+    /**
+     * @param from the old configuration, for example the one on disk
+     * @param to   the new configuration, for example the one in memory
+     */
+    public static AxiomDiff between(AxiomConfigurationSection from, AxiomConfigurationSection to) {
+        AxiomDiff diff = new AxiomDiff();
+        if (!commentsEqual(from.root(), to.root())) {
+            diff.commentsChanged.add("");
+        }
+        diff.compareMappings(from.root(), to.root(), "");
+        return diff;
+    }
+
+    private void compareMappings(MappingNode from, MappingNode to, String prefix) {
+        Map<String, NodeTuple> fromTuples = new LinkedHashMap<>();
+        for (NodeTuple tuple : from.getValue()) {
+            String key = KeyIndex.keyOf(tuple);
+            if (key != null) {
+                fromTuples.putIfAbsent(key, tuple);
+            }
+        }
+
+        for (NodeTuple toTuple : to.getValue()) {
+            String key = KeyIndex.keyOf(toTuple);
+            if (key == null) {
+                continue;
+            }
+
+            String path = prefix + key;
+            NodeTuple fromTuple = fromTuples.remove(key);
+            if (fromTuple == null) {
+                added.add(path);
+                continue;
+            }
+
+            Node fromValue = fromTuple.getValueNode();
+            Node toValue = toTuple.getValueNode();
+            boolean keyCommentsEqual = commentsEqual(fromTuple.getKeyNode(), toTuple.getKeyNode());
+            if (fromValue instanceof MappingNode && toValue instanceof MappingNode) {
+                if (!keyCommentsEqual || !commentsEqual(fromValue, toValue)) {
+                    commentsChanged.add(path);
+                }
+                compareMappings((MappingNode) fromValue, (MappingNode) toValue, path + ".");
+            } else if (!Nodes.equal(fromValue, toValue)) {
+                changed.add(path);
+            } else if (!keyCommentsEqual || !allCommentsEqual(fromValue, toValue)) {
+                commentsChanged.add(path);
+            }
+        }
+
+        removed.addAll(prefixed(prefix, fromTuples.keySet()));
+    }
+
+    private static List<String> prefixed(String prefix, Collection<String> keys) {
+        List<String> paths = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            paths.add(prefix + key);
+        }
+        return paths;
+    }
+
+    private static boolean commentsEqual(Node a, Node b) {
+        return commentsEqual(a.getBlockComments(), b.getBlockComments())
+                && commentsEqual(a.getInLineComments(), b.getInLineComments())
+                && commentsEqual(a.getEndComments(), b.getEndComments());
+    }
+
+    /**
+     * Compares comment lines by type and text, a missing list is the same as an empty one.
+     */
+    private static boolean commentsEqual(List<CommentLine> a, List<CommentLine> b) {
+        int sizeA = a == null ? 0 : a.size();
+        int sizeB = b == null ? 0 : b.size();
+        if (sizeA != sizeB) {
+            return false;
+        }
+
+        for (int i = 0; i < sizeA; i++) {
+            CommentLine lineA = a.get(i);
+            CommentLine lineB = b.get(i);
+            if (lineA.getCommentType() != lineB.getCommentType() || !lineA.getValue().equals(lineB.getValue())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares the comments of two {@link Nodes#equal(Node, Node) equal} trees.
+     */
+    private static boolean allCommentsEqual(Node a, Node b) {
+        if (!commentsEqual(a, b)) {
+            return false;
+        }
+
+        if (a instanceof MappingNode) {
+            List<NodeTuple> tuplesA = ((MappingNode) a).getValue();
+            List<NodeTuple> tuplesB = ((MappingNode) b).getValue();
+            for (int i = 0; i < tuplesA.size(); i++) {
+                if (!allCommentsEqual(tuplesA.get(i).getKeyNode(), tuplesB.get(i).getKeyNode())
+                        || !allCommentsEqual(tuplesA.get(i).getValueNode(), tuplesB.get(i).getValueNode())) {
+                    return false;
+                }
+            }
+        } else if (a instanceof SequenceNode) {
+            List<Node> valuesA = ((SequenceNode) a).getValue();
+            List<Node> valuesB = ((SequenceNode) b).getValue();
+            for (int i = 0; i < valuesA.size(); i++) {
+                if (!allCommentsEqual(valuesA.get(i), valuesB.get(i))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return paths that only exist in the new configuration
+     */
+    public List<String> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * @return paths that only exist in the old configuration
+     */
+    public List<String> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * @return paths whose value differs, ignoring comments
+     */
+    public List<String> getChanged() {
+        return Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * @return paths whose value is the same but whose comments differ, the root section is reported as an empty path
+     */
+    public List<String> getCommentsChanged() {
+        return Collections.unmodifiableList(commentsChanged);
+    }
+
+    /**
+     * @return true if the values of both configurations are the same, comments are not taken into account
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "AxiomDiff{added=" + added + ", removed=" + removed + ", changed=" + changed + ", commentsChanged=" + commentsChanged + "}";
+    }
+}
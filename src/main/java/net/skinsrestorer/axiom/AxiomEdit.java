@@ -0,0 +1,183 @@
+package net.skinsrestorer.axiom;
+
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+
+import java.util.*;
+
+/**
+ * A batch of set and remove operations that is applied in a single pass over the tree.
+ * Operations are grouped by their shared path prefix, so every section touched by the batch is resolved only once.
+ * The result is the same as applying the operations one after another,
+ * except that a removed section which receives new keys in the same batch keeps its position.
+ * <p>
+ * {@link #commit()} first checks every operation against the tree and only then applies them,
+ * so a batch that can't be applied leaves the tree untouched.
+ */
+public final class AxiomEdit {
+    private final AxiomConfigurationSection section;
+    private final EditNode root = new EditNode();
+
+    AxiomEdit(AxiomConfigurationSection section) {
+        this.section = section;
+    }
+
+    public AxiomEdit set(String path, @Nullable Object value) {
+        return set(ConfigPath.of(path), value);
+    }
+
+    /**
+     * Sets a value, a null value removes the path just like {@link AxiomConfigurationSection#set(ConfigPath, Object)}.
+     */
+    public AxiomEdit set(ConfigPath path, @Nullable Object value) {
+        EditNode node = root.resolve(path);
+        node.operation = true;
+        node.value = value;
+        // Everything below is overwritten by this operation
+        node.children = null;
+        return this;
+    }
+
+    public AxiomEdit remove(String path) {
+        return set(path, null);
+    }
+
+    public AxiomEdit remove(ConfigPath path) {
+        return set(path, null);
+    }
+
+    /**
+     * Applies all operations or, if one of them can't be applied, none of them.
+     *
+     * @throws IllegalStateException if an operation needs to descend into a value that is not a section
+     */
+    public void commit() {
+        section.commit(this);
+    }
+
+    void applyTo(AxiomConfigurationSection target) {
+        if (root.children == null) {
+            return;
+        }
+
+        prepare(target, target.root(), root, "");
+        apply(target, target.writableRoot(), root);
+    }
+
+    /**
+     * Creates the new tuples and validates the batch without touching the tree.
+     */
+    private static void prepare(AxiomConfigurationSection target, @Nullable MappingNode existing, EditNode edit, String prefix) {
+        for (Map.Entry<String, EditNode> entry : edit.children.entrySet()) {
+            String key = entry.getKey();
+            EditNode child = entry.getValue();
+            NodeTuple previous = existing == null ? null : target.getDirectTuple(existing, key);
+
+            child.tuple = null;
+            child.skip = false;
+            Node current = previous == null ? null : previous.getValueNode();
+            if (child.operation) {
+                if (child.value != null) {
+                    child.tuple = target.createTuple(key, child.value, previous);
+                    current = child.tuple.getValueNode();
+                } else {
+                    current = null;
+                }
+            }
+
+            if (child.children == null) {
+                continue;
+            }
+
+            if (current == null) {
+                if (!child.hasValues()) {
+                    // Only removals below a section that doesn't exist, nothing to do
+                    child.skip = true;
+                    continue;
+                }
+
+                child.tuple = target.createTuple(key, target.newMapping());
+                current = child.tuple.getValueNode();
+            } else if (!(current instanceof MappingNode)) {
+                throw new IllegalStateException("Cannot edit below " + prefix + key + ", it is not a section");
+            }
+
+            prepare(target, (MappingNode) current, child, prefix + key + ".");
+        }
+    }
+
+    private static void apply(AxiomConfigurationSection target, MappingNode node, EditNode edit) {
+        Set<String> removed = null;
+        for (Map.Entry<String, EditNode> entry : edit.children.entrySet()) {
+            String key = entry.getKey();
+            EditNode child = entry.getValue();
+            int position = target.context.indexOf(node, key);
+
+            if (child.tuple != null) {
+                if (position >= 0) {
+                    target.context.invalidateValue(node.getValue().get(position).getValueNode());
+                    node.getValue().set(position, child.tuple);
+                } else {
+                    target.appendTuple(node, child.tuple);
+                }
+            } else if (child.operation && position >= 0) {
+                target.context.invalidateValue(node.getValue().get(position).getValueNode());
+                if (removed == null) {
+                    removed = new HashSet<>();
+                }
+                removed.add(key);
+            }
+
+            if (child.children != null && !child.skip) {
+                MappingNode value = child.tuple != null ? (MappingNode) child.tuple.getValueNode() : target.writableChild(node, position);
+                apply(target, value, child);
+            }
+        }
+
+        if (removed != null) {
+            Set<String> removedKeys = removed;
+            node.getValue().removeIf(tuple -> removedKeys.contains(KeyIndex.keyOf(tuple)));
+            target.context.invalidate(node);
+        }
+    }
+
+    private static class EditNode {
+        private Map<String, EditNode> children;
+        private boolean operation;
+        private Object value;
+        private NodeTuple tuple;
+        private boolean skip;
+
+        private boolean hasValues() {
+            if (children == null) {
+                return false;
+            }
+
+            for (EditNode child : children.values()) {
+                if (child.operation && child.value != null || child.hasValues()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private EditNode resolve(ConfigPath path) {
+            if (path.length() == 0) {
+                throw new IllegalArgumentException("Path must not be empty");
+            }
+
+            EditNode node = this;
+            for (int i = 0; i < path.length(); i++) {
+                if (node.children == null) {
+                    node.children = new LinkedHashMap<>();
+                }
+                node = node.children.computeIfAbsent(path.get(i), k -> new EditNode());
+            }
+
+            return node;
+        }
+    }
+}
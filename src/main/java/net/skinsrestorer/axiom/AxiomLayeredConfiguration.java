@@ -0,0 +1,225 @@
+package net.skinsrestorer.axiom;
+
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read-only view over a stack of sections, for example user settings, then server settings, then bundled defaults.
+ * Layers are combined the way {@link AxiomConfigurationSection#merge(AxiomConfigurationSection)} combines a configuration
+ * with its defaults, every layer acting as the defaults of the layers above it: the first layer that has a path wins,
+ * sections of all layers are combined, and a section in a lower layer replaces a scalar or sequence of a higher layer.
+ * A lookup returns the node of the layer it resolves to, so defaults are never copied into the other layers
+ * and nodes are never shared between trees.
+ * <p>
+ * Resolved lookups are memoized until one of the layers is changed or loaded again.
+ * Changes made directly to nodes of a layer are not seen, see {@link AxiomConfiguration#isDirty()}.
+ */
+public final class AxiomLayeredConfiguration {
+    private static final Object MISSING = new Object();
+
+    private final AxiomConfigurationSection[] layers;
+    private final MappingNode[] roots;
+    private final long[] modCounts;
+    private final Map<ConfigPath, Object> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * @param layers the layers, the first layer has the highest priority
+     */
+    public AxiomLayeredConfiguration(AxiomConfigurationSection... layers) {
+        if (layers.length == 0) {
+            throw new IllegalArgumentException("At least one layer is required");
+        }
+
+        this.layers = layers.clone();
+        this.roots = new MappingNode[layers.length];
+        this.modCounts = new long[layers.length];
+    }
+
+    public List<AxiomConfigurationSection> getLayers() {
+        return Collections.unmodifiableList(Arrays.asList(layers));
+    }
+
+    public Optional<Node> getNode(String path) {
+        return getNode(ConfigPath.of(path));
+    }
+
+    public Optional<Node> getNode(ConfigPath path) {
+        return Optional.ofNullable(findNode(path));
+    }
+
+    @Nullable
+    private Node findNode(ConfigPath path) {
+        checkLayers();
+        Object node = resolved.get(path);
+        if (node == null) {
+            node = resolve(path);
+            Object value = node == null ? MISSING : node;
+            synchronized (modCounts) {
+                // A layer that changed while resolving may have given a stale result, it is only memoized if none did
+                if (isCurrent()) {
+                    resolved.put(path, value);
+                }
+            }
+        }
+        return node == MISSING ? null : (Node) node;
+    }
+
+    @Nullable
+    private Node resolve(ConfigPath path) {
+        // The sections that are combined at the current depth of the path, highest priority first
+        AxiomConfigurationSection[] owners = layers.clone();
+        MappingNode[] sections = new MappingNode[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            sections[i] = layers[i].root();
+        }
+        int count = layers.length;
+
+        for (int depth = 0; depth < path.length(); depth++) {
+            Node first = null;
+            int mappings = 0;
+            for (int i = 0; i < count; i++) {
+                NodeTuple tuple = owners[i].getDirectTuple(sections[i], path.get(depth));
+                if (tuple == null) {
+                    continue;
+                }
+
+                Node node = tuple.getValueNode();
+                if (first == null) {
+                    first = node;
+                }
+                if (node instanceof MappingNode) {
+                    owners[mappings] = owners[i];
+                    sections[mappings++] = (MappingNode) node;
+                }
+            }
+
+            if (depth == path.length() - 1) {
+                // A section of a lower layer replaces a value of a higher one
+                return mappings > 0 ? sections[0] : first;
+            } else if (mappings == 0) {
+                // Missing in every layer, or a value on the way hides the path
+                return null;
+            }
+            count = mappings;
+        }
+        return null;
+    }
+
+    /**
+     * Drops the memoized lookups if a layer was changed or loaded again since they were resolved.
+     */
+    private void checkLayers() {
+        synchronized (modCounts) {
+            if (isCurrent()) {
+                return;
+            }
+
+            for (int i = 0; i < layers.length; i++) {
+                roots[i] = layers[i].root();
+                modCounts[i] = layers[i].context.getModCount();
+            }
+            resolved.clear();
+        }
+    }
+
+    /**
+     * @return whether no layer was changed or loaded again since the memoized lookups were resolved
+     */
+    private boolean isCurrent() {
+        for (int i = 0; i < layers.length; i++) {
+            if (roots[i] != layers[i].root() || modCounts[i] != layers[i].context.getModCount()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the keys of all layers, in the order of the first layer that has them
+     */
+    public List<String> getKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        for (AxiomConfigurationSection layer : layers) {
+            keys.addAll(layer.getKeys());
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * @return the keys of the sections at the path in all layers that aren't hidden by a higher layer
+     */
+    public List<String> getKeys(String path) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (AxiomConfigurationSection layer : layers) {
+            AxiomConfigurationSection section = layer.getSection(path);
+            if (section == null) {
+                continue;
+            }
+
+            for (String key : section.getKeys()) {
+                if (!keys.contains(key) && findNode(ConfigPath.of(path + "." + key)) != null) {
+                    keys.add(key);
+                }
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    public String getString(String path) {
+        return getString(ConfigPath.of(path));
+    }
+
+    public String getString(ConfigPath path) {
+        Node node = findNode(path);
+        return node instanceof ScalarNode ? ((ScalarNode) node).getValue() : null;
+    }
+
+    public int getInt(String path, int def) throws NumberFormatException {
+        return getInt(ConfigPath.of(path), def);
+    }
+
+    public int getInt(ConfigPath path, int def) throws NumberFormatException {
+        Node node = findNode(path);
+        return node instanceof ScalarNode ? Integer.parseInt(((ScalarNode) node).getValue()) : def;
+    }
+
+    public boolean getBoolean(String path, boolean def) {
+        return getBoolean(ConfigPath.of(path), def);
+    }
+
+    public boolean getBoolean(ConfigPath path, boolean def) {
+        Node node = findNode(path);
+        return node instanceof ScalarNode ? Boolean.parseBoolean(((ScalarNode) node).getValue()) : def;
+    }
+
+    public List<String> getStringList(String path) {
+        return getStringList(ConfigPath.of(path));
+    }
+
+    public List<String> getStringList(ConfigPath path) {
+        Node node = findNode(path);
+        return node instanceof SequenceNode ? AxiomConfigurationSection.stringList((SequenceNode) node) : null;
+    }
+
+    /**
+     * Merges all layers into a new configuration, for example to write the effective settings to a file.
+     * The layers are merged like {@link AxiomConfigurationSection#merge(AxiomConfigurationSection)},
+     * so the result has the same values as this view. It is built from copies, changing it does not change any layer.
+     */
+    public AxiomConfiguration materialize() {
+        AxiomConfiguration configuration = new AxiomConfiguration(layers[0].getEngine());
+        MappingNode root = Nodes.copy(layers[0].root());
+        for (int i = 1; i < layers.length; i++) {
+            MergeTask.merge(root, Nodes.copy(layers[i].root()), false, true, false);
+        }
+        configuration.rootNode = root;
+        return configuration;
+    }
+}
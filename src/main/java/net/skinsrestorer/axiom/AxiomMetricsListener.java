@@ -0,0 +1,52 @@
+package net.skinsrestorer.axiom;
+
+/**
+ * Receives measurements of the work a configuration does, set it with {@link AxiomConfiguration#setMetricsListener(AxiomMetricsListener)}.
+ * Nothing is measured while no listener is set. Listeners are called on the thread doing the work and should return quickly.
+ * <p>
+ * Node counts include key nodes, a depth of one means only scalar values below the root.
+ * Both are -1 for trees that are loaded lazily, measuring them would compose every section.
+ */
+public interface AxiomMetricsListener {
+    /**
+     * Called after a load or reload.
+     *
+     * @param characters the number of characters read, or bytes for loads through a cache file
+     */
+    default void loaded(long durationNanos, long characters, int nodes, int depth) {
+    }
+
+    /**
+     * Called after a save.
+     *
+     * @param characters the number of characters written, or bytes for saves to a file
+     */
+    default void saved(long durationNanos, long characters) {
+    }
+
+    /**
+     * Called after defaults were merged into a section.
+     *
+     * @param nodes the number of nodes of the default tree
+     * @param depth the depth of the default tree
+     */
+    default void merged(long durationNanos, int nodes, int depth) {
+    }
+
+    /**
+     * Called for every lookup of a path.
+     *
+     * @param path the path relative to the section it was looked up on
+     * @param hit  whether there was a node at the path
+     */
+    default void lookup(ConfigPath path, boolean hit) {
+    }
+
+    /**
+     * @return a listener that records every measurement as a JDK Flight Recorder event,
+     * or a listener that does nothing if Flight Recorder isn't available on this JVM
+     */
+    static AxiomMetricsListener flightRecorder() {
+        return FlightRecorderMetrics.create();
+    }
+}
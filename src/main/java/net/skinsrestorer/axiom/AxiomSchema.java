@@ -0,0 +1,422 @@
+package net.skinsrestorer.axiom;
+
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+
+import java.util.*;
+
+/**
+ * Describes which keys a configuration may have and what their values look like.
+ * The rules are compiled into a tree of path parts, so a whole configuration is checked in a single pass over its nodes
+ * and every violation is reported, not only the first one.
+ * <p>
+ * A path part {@code *} matches any key that has no rule of its own, for example {@code players.*.name}.
+ * Keys without a rule are allowed.
+ */
+public final class AxiomSchema {
+    private final SchemaNode root;
+
+    private AxiomSchema(SchemaNode root) {
+        this.root = root;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return every violation in the order they were found, an empty list if the section matches this schema
+     */
+    public List<Violation> validate(AxiomConfigurationSection section) {
+        List<Violation> violations = new ArrayList<>();
+        validateMapping(section.root(), root, "", violations);
+        return violations;
+    }
+
+    private static void validateMapping(MappingNode node, SchemaNode schema, String prefix, List<Violation> violations) {
+        if (!schema.hasChildren()) {
+            return;
+        }
+
+        boolean[] seen = schema.requiredChildren == 0 ? null : new boolean[schema.children.size()];
+        for (NodeTuple tuple : node.getValue()) {
+            String key = KeyIndex.keyOf(tuple);
+            if (key == null) {
+                continue;
+            }
+
+            SchemaNode child = schema.children == null ? null : schema.children.get(key);
+            if (child == null) {
+                child = schema.wildcard;
+                if (child == null) {
+                    continue;
+                }
+            } else if (seen != null) {
+                seen[child.index] = true;
+            }
+
+            validateNode(tuple.getValueNode(), child, prefix + key, violations);
+        }
+
+        if (seen != null) {
+            for (SchemaNode child : schema.children.values()) {
+                if (child.required && !seen[child.index]) {
+                    violations.add(new Violation(prefix + child.key, "is required", node.getStartMark()));
+                }
+            }
+        }
+    }
+
+    private static void validateNode(Node node, SchemaNode schema, String path, List<Violation> violations) {
+        Rule rule = schema.rule;
+        if (rule != null) {
+            rule.check(node, path, violations);
+        }
+
+        if (schema.hasChildren()) {
+            if (node instanceof MappingNode) {
+                validateMapping((MappingNode) node, schema, path + ".", violations);
+            } else if (rule == null || rule.type == null) {
+                violations.add(new Violation(path, "must be a section", node.getStartMark()));
+            }
+        }
+    }
+
+    public enum Type {
+        STRING,
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        SECTION,
+        LIST;
+
+        /**
+         * @return null if the node has this type, otherwise the description of the problem
+         */
+        @Nullable
+        private String check(Node node) {
+            switch (this) {
+                case SECTION:
+                    return node instanceof MappingNode ? null : "must be a section";
+                case LIST:
+                    return node instanceof SequenceNode ? null : "must be a list";
+                default:
+                    break;
+            }
+
+            if (!(node instanceof ScalarNode)) {
+                return "must be " + description();
+            }
+
+            String value = ((ScalarNode) node).getValue();
+            try {
+                switch (this) {
+                    case INT:
+                        Integer.parseInt(value);
+                        break;
+                    case LONG:
+                        Long.parseLong(value);
+                        break;
+                    case DOUBLE:
+                        Double.parseDouble(value);
+                        break;
+                    case BOOLEAN:
+                        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                            return "must be " + description();
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException e) {
+                return "must be " + description();
+            }
+            return null;
+        }
+
+        private String description() {
+            switch (this) {
+                case STRING:
+                    return "a string";
+                case INT:
+                    return "an int";
+                case LONG:
+                    return "a long";
+                case DOUBLE:
+                    return "a number";
+                case BOOLEAN:
+                    return "true or false";
+                case SECTION:
+                    return "a section";
+                default:
+                    return "a list";
+            }
+        }
+
+        private boolean isNumber() {
+            return this == INT || this == LONG || this == DOUBLE;
+        }
+    }
+
+    /**
+     * A value that doesn't match the schema.
+     */
+    public static final class Violation {
+        private final String path;
+        private final String message;
+        @Nullable
+        private final Mark mark;
+
+        private Violation(String path, String message, @Nullable Mark mark) {
+            this.path = path;
+            this.message = message;
+            this.mark = mark;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return where the value starts in the source, for a missing key where its parent section starts,
+         * or null for nodes that were not loaded from a source
+         */
+        @Nullable
+        public Mark getMark() {
+            return mark;
+        }
+
+        @Override
+        public String toString() {
+            String location = mark == null ? "" : " (line " + (mark.getLine() + 1) + ", column " + (mark.getColumn() + 1) + ")";
+            return path + " " + message + location;
+        }
+    }
+
+    public static final class Builder {
+        private final Map<String, Rule> rules = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Starts the rule of a path, a path that already has a rule continues that rule.
+         */
+        public Rule key(String path) {
+            return rules.computeIfAbsent(path, k -> new Rule(this));
+        }
+
+        public AxiomSchema build() {
+            SchemaNode root = new SchemaNode("");
+            for (Map.Entry<String, Rule> entry : rules.entrySet()) {
+                ConfigPath path = ConfigPath.of(entry.getKey());
+                if (path.length() == 0 || path.length() == 1 && path.get(0).isEmpty()) {
+                    throw new IllegalArgumentException("Path must not be empty");
+                }
+
+                List<SchemaNode> nodes = new ArrayList<>(path.length() + 1);
+                nodes.add(root);
+                for (int i = 0; i < path.length(); i++) {
+                    nodes.add(nodes.get(i).child(path.get(i)));
+                }
+
+                Rule rule = entry.getValue().copy();
+                nodes.get(path.length()).rule = rule;
+                if (rule.required) {
+                    // The sections on the way to a required key are required as well, up to the nearest wildcard
+                    for (int i = path.length(); i > 0 && nodes.get(i - 1).wildcard != nodes.get(i) && !nodes.get(i).required; i--) {
+                        nodes.get(i).required = true;
+                        nodes.get(i - 1).requiredChildren++;
+                    }
+                }
+            }
+            return new AxiomSchema(root);
+        }
+    }
+
+    /**
+     * The checks of a single path, all of them are optional.
+     */
+    public static final class Rule {
+        private final Builder builder;
+        @Nullable
+        private Type type;
+        private boolean required;
+        private double min = Double.NEGATIVE_INFINITY;
+        private double max = Double.POSITIVE_INFINITY;
+        @Nullable
+        private Set<String> values;
+        @Nullable
+        private Type elementType;
+
+        private Rule(@Nullable Builder builder) {
+            this.builder = builder;
+        }
+
+        public Rule type(Type type) {
+            this.type = type;
+            return this;
+        }
+
+        public Rule required() {
+            this.required = true;
+            return this;
+        }
+
+        /**
+         * Limits numbers to a range, or the size of a list if the type is {@link Type#LIST}.
+         */
+        public Rule range(double min, double max) {
+            this.min = min;
+            this.max = max;
+            return this;
+        }
+
+        /**
+         * Limits a string to the given values, compared case-sensitively.
+         */
+        public Rule oneOf(String... values) {
+            this.type = Type.STRING;
+            this.values = new LinkedHashSet<>(Arrays.asList(values));
+            return this;
+        }
+
+        /**
+         * Limits a string to the names of the constants of an enum.
+         */
+        public Rule oneOf(Class<? extends Enum<?>> type) {
+            Enum<?>[] constants = type.getEnumConstants();
+            String[] names = new String[constants.length];
+            for (int i = 0; i < constants.length; i++) {
+                names[i] = constants[i].name();
+            }
+            return oneOf(names);
+        }
+
+        /**
+         * Requires a list whose elements all have the given type.
+         */
+        public Rule listOf(Type elementType) {
+            this.type = Type.LIST;
+            this.elementType = elementType;
+            return this;
+        }
+
+        /**
+         * Starts the rule of the next path, see {@link Builder#key(String)}.
+         */
+        public Rule key(String path) {
+            return builder.key(path);
+        }
+
+        public AxiomSchema build() {
+            return builder.build();
+        }
+
+        private Rule copy() {
+            Rule copy = new Rule(null);
+            copy.type = type;
+            copy.required = required;
+            copy.min = min;
+            copy.max = max;
+            copy.values = values == null ? null : new LinkedHashSet<>(values);
+            copy.elementType = elementType;
+            return copy;
+        }
+
+        private void check(Node node, String path, List<Violation> violations) {
+            if (type == null) {
+                return;
+            }
+
+            String problem = type.check(node);
+            if (problem != null) {
+                violations.add(new Violation(path, problem, node.getStartMark()));
+                return;
+            }
+
+            if (type.isNumber()) {
+                double value = Double.parseDouble(((ScalarNode) node).getValue());
+                if (value < min || value > max) {
+                    violations.add(new Violation(path, "must be between " + format(min) + " and " + format(max), node.getStartMark()));
+                }
+            } else if (values != null && !values.contains(((ScalarNode) node).getValue())) {
+                violations.add(new Violation(path, "must be one of " + String.join(", ", values), node.getStartMark()));
+            } else if (type == Type.LIST) {
+                List<Node> elements = ((SequenceNode) node).getValue();
+                if (elements.size() < min || elements.size() > max) {
+                    violations.add(new Violation(path, "must have between " + format(min) + " and " + format(max) + " elements", node.getStartMark()));
+                }
+
+                if (elementType != null) {
+                    for (int i = 0; i < elements.size(); i++) {
+                        Node element = elements.get(i);
+                        String elementProblem = elementType.check(element);
+                        if (elementProblem != null) {
+                            violations.add(new Violation(path + "[" + i + "]", elementProblem, element.getStartMark()));
+                        }
+                    }
+                }
+            }
+        }
+
+        private static String format(double value) {
+            if (Double.isInfinite(value)) {
+                return value > 0 ? "infinity" : "-infinity";
+            }
+            return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+        }
+    }
+
+    /**
+     * A path part of the compiled schema.
+     */
+    private static class SchemaNode {
+        private final String key;
+        private int index;
+        @Nullable
+        private Rule rule;
+        @Nullable
+        private Map<String, SchemaNode> children;
+        @Nullable
+        private SchemaNode wildcard;
+        private boolean required;
+        private int requiredChildren;
+
+        private SchemaNode(String key) {
+            this.key = key;
+        }
+
+        private boolean hasChildren() {
+            return children != null || wildcard != null;
+        }
+
+        private SchemaNode child(String part) {
+            if (part.equals("*")) {
+                if (wildcard == null) {
+                    wildcard = new SchemaNode(part);
+                }
+                return wildcard;
+            }
+
+            if (children == null) {
+                children = new LinkedHashMap<>();
+            }
+            return children.computeIfAbsent(part, k -> {
+                SchemaNode node = new SchemaNode(k);
+                node.index = children.size();
+                return node;
+            });
+        }
+    }
+}
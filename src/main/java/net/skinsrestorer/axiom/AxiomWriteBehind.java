@@ -0,0 +1,78 @@
+package net.skinsrestorer.axiom;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Saves an {@link AxiomConfiguration} a while after it changed, coalescing every change made in the meantime into one write.
+ * Created with {@link AxiomConfiguration#writeBehind(Path, long, TimeUnit, Executor)}.
+ */
+public final class AxiomWriteBehind implements Closeable {
+    private final AxiomConfiguration config;
+    private final Path path;
+    private final long delayMillis;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    AxiomWriteBehind(AxiomConfiguration config, Path path, long delayMillis, Executor executor) {
+        this.config = config;
+        this.path = path.toAbsolutePath();
+        this.delayMillis = delayMillis;
+        this.executor = executor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "axiom-write-behind-" + this.path.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Called after every change, only the first change after a save schedules the next one.
+     */
+    void modified() {
+        if (!closed && scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> executor.execute(this::save), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void save() {
+        // Changes made from here on schedule another save
+        scheduled.set(false);
+        try {
+            config.save(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Saves pending changes right away on the calling thread.
+     */
+    public void flush() throws IOException {
+        config.save(path);
+    }
+
+    /**
+     * Stops writing behind and saves pending changes.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        config.stopWriteBehind(this);
+        scheduler.shutdownNow();
+        flush();
+    }
+}
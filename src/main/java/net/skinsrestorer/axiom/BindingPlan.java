@@ -0,0 +1,278 @@
+package net.skinsrestorer.axiom;
+
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * How a section is copied into an object of one class, built once per class and then reused for every bind.
+ * Binding makes a single pass over the tuples of the mapping, converts the values of known keys and hands them
+ * to method handles for the fields or the canonical record constructor, so no reflection is done after the plan exists.
+ * <p>
+ * Keys are the field or record component names. Supported types are strings, the primitives int, long, double and boolean
+ * and their wrappers, enums, lists of strings, int, long and double arrays and classes that can be bound themselves.
+ * Keys without a property are ignored, properties without a key keep their initial value, or zero and null for records.
+ */
+final class BindingPlan {
+    private static final ClassValue<BindingPlan> PLANS = new ClassValue<BindingPlan>() {
+        @Override
+        protected BindingPlan computeValue(Class<?> type) {
+            return new BindingPlan(type);
+        }
+    };
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> type;
+    private final boolean record;
+    private final MethodHandle constructor;
+    private final Property[] properties;
+    private final Map<String, Property> propertiesByKey;
+
+    private BindingPlan(Class<?> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Object[] components = Records.components(type);
+            record = components != null;
+            if (record) {
+                properties = new Property[components.length];
+                Class<?>[] parameterTypes = new Class<?>[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    parameterTypes[i] = Records.type(components[i]);
+                    properties[i] = new Property(i, Records.name(components[i]), parameterTypes[i], Records.genericType(components[i]), null);
+                }
+
+                Constructor<?> canonical = type.getDeclaredConstructor(parameterTypes);
+                canonical.setAccessible(true);
+                constructor = lookup.unreflectConstructor(canonical)
+                        .asSpreader(Object[].class, components.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } else {
+                Constructor<?> noArgs = type.getDeclaredConstructor();
+                noArgs.setAccessible(true);
+                constructor = lookup.unreflectConstructor(noArgs).asType(MethodType.methodType(Object.class));
+
+                List<Property> list = new ArrayList<>();
+                for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                    for (Field field : current.getDeclaredFields()) {
+                        int modifiers = field.getModifiers();
+                        if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) {
+                            continue;
+                        }
+
+                        field.setAccessible(true);
+                        list.add(new Property(list.size(), field.getName(), field.getType(), field.getGenericType(),
+                                lookup.unreflectSetter(field).asType(SETTER)));
+                    }
+                }
+                properties = list.toArray(new Property[0]);
+            }
+        } catch (ReflectiveOperationException | SecurityException e) {
+            throw new IllegalArgumentException("Cannot bind to " + type.getName(), e);
+        }
+
+        propertiesByKey = new HashMap<>(Math.max(16, (int) (properties.length / 0.75f) + 1));
+        for (Property property : properties) {
+            // Fields are collected from the class up, so a field hides the fields of the same name in its superclasses
+            propertiesByKey.putIfAbsent(property.name, property);
+        }
+    }
+
+    static BindingPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * @return a new object filled with the values of the mapping
+     */
+    Object bind(MappingNode node) {
+        Object[] values = read(node);
+        try {
+            if (record) {
+                return constructor.invokeExact(values);
+            }
+
+            Object instance = constructor.invokeExact();
+            write(instance, values);
+            return instance;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Sets the fields of an existing object, fields without a key in the mapping are left untouched.
+     */
+    void bindTo(Object instance, MappingNode node) {
+        if (record) {
+            throw new IllegalArgumentException("Records can't be changed, bind a new one instead");
+        }
+
+        try {
+            write(instance, read(node));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot bind to " + type.getName(), e);
+        }
+    }
+
+    private Object[] read(MappingNode node) {
+        Object[] values = new Object[properties.length];
+        for (NodeTuple tuple : node.getValue()) {
+            String key = KeyIndex.keyOf(tuple);
+            Property property = key == null ? null : propertiesByKey.get(key);
+            if (property != null) {
+                values[property.index] = property.converter.convert(tuple.getValueNode());
+            }
+        }
+
+        if (record) {
+            for (Property property : properties) {
+                if (values[property.index] == null) {
+                    values[property.index] = property.zero;
+                }
+            }
+        }
+        return values;
+    }
+
+    private void write(Object instance, Object[] values) throws Throwable {
+        for (Property property : properties) {
+            Object value = values[property.index];
+            if (value != null) {
+                property.setter.invokeExact(instance, value);
+            }
+        }
+    }
+
+    private static class Property {
+        private final int index;
+        private final String name;
+        private final Converter converter;
+        private final Object zero;
+        private final MethodHandle setter;
+
+        private Property(int index, String name, Class<?> type, Type genericType, MethodHandle setter) {
+            this.index = index;
+            this.name = name;
+            this.converter = Converter.of(type, genericType);
+            this.zero = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * Converts a value node, returns null if the node doesn't have the right shape so the property keeps its value.
+     */
+    private interface Converter {
+        Object convert(Node node);
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static Converter of(Class<?> type, Type genericType) {
+            if (type == String.class) {
+                return scalar(value -> value);
+            } else if (type == int.class || type == Integer.class) {
+                return scalar(Integer::valueOf);
+            } else if (type == long.class || type == Long.class) {
+                return scalar(Long::valueOf);
+            } else if (type == double.class || type == Double.class) {
+                return scalar(Double::valueOf);
+            } else if (type == boolean.class || type == Boolean.class) {
+                return scalar(Boolean::valueOf);
+            } else if (type.isEnum()) {
+                return scalar(value -> Enum.valueOf((Class) type, value));
+            } else if (type == List.class && genericType instanceof ParameterizedType
+                    && ((ParameterizedType) genericType).getActualTypeArguments()[0] == String.class) {
+                return node -> node instanceof SequenceNode ? AxiomConfigurationSection.stringList((SequenceNode) node) : null;
+            } else if (type == int[].class) {
+                return sequence(values -> values.stream().mapToInt(Integer::parseInt).toArray());
+            } else if (type == long[].class) {
+                return sequence(values -> values.stream().mapToLong(Long::parseLong).toArray());
+            } else if (type == double[].class) {
+                return sequence(values -> values.stream().mapToDouble(Double::parseDouble).toArray());
+            } else if (!type.isPrimitive() && !type.isArray() && !type.isInterface() && !Modifier.isAbstract(type.getModifiers())
+                    && !type.getName().startsWith("java.")) {
+                // Nested plans are resolved on first use, so classes can refer to themselves
+                return node -> node instanceof MappingNode ? BindingPlan.of(type).bind((MappingNode) node) : null;
+            }
+
+            throw new IllegalArgumentException("Unsupported property type " + genericType.getTypeName());
+        }
+
+        static Converter scalar(Function<String, Object> parser) {
+            return node -> node instanceof ScalarNode ? parser.apply(((ScalarNode) node).getValue()) : null;
+        }
+
+        static Converter sequence(Function<List<String>, Object> parser) {
+            return node -> node instanceof SequenceNode ? parser.apply(AxiomConfigurationSection.stringList((SequenceNode) node)) : null;
+        }
+    }
+
+    /**
+     * Record support through reflection, records only exist since Java 16.
+     */
+    private static class Records {
+        private static final Method IS_RECORD;
+        private static final Method GET_RECORD_COMPONENTS;
+        private static final Method GET_NAME;
+        private static final Method GET_TYPE;
+        private static final Method GET_GENERIC_TYPE;
+
+        static {
+            Method isRecord = null;
+            Method getRecordComponents = null;
+            Method getName = null;
+            Method getType = null;
+            Method getGenericType = null;
+            try {
+                isRecord = Class.class.getMethod("isRecord");
+                getRecordComponents = Class.class.getMethod("getRecordComponents");
+                Class<?> component = Class.forName("java.lang.reflect.RecordComponent");
+                getName = component.getMethod("getName");
+                getType = component.getMethod("getType");
+                getGenericType = component.getMethod("getGenericType");
+            } catch (ReflectiveOperationException e) {
+                isRecord = null;
+            }
+            IS_RECORD = isRecord;
+            GET_RECORD_COMPONENTS = getRecordComponents;
+            GET_NAME = getName;
+            GET_TYPE = getType;
+            GET_GENERIC_TYPE = getGenericType;
+        }
+
+        /**
+         * @return the record components in declaration order or null if the class isn't a record
+         */
+        private static Object[] components(Class<?> type) throws ReflectiveOperationException {
+            if (IS_RECORD == null || !(Boolean) IS_RECORD.invoke(type)) {
+                return null;
+            }
+            return (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+        }
+
+        private static String name(Object component) throws ReflectiveOperationException {
+            return (String) GET_NAME.invoke(component);
+        }
+
+        private static Class<?> type(Object component) throws ReflectiveOperationException {
+            return (Class<?>) GET_TYPE.invoke(component);
+        }
+
+        private static Type genericType(Object component) throws ReflectiveOperationException {
+            return (Type) GET_GENERIC_TYPE.invoke(component);
+        }
+    }
+}
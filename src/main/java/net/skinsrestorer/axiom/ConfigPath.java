@@ -0,0 +1,79 @@
+package net.skinsrestorer.axiom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A dot separated configuration path that is parsed once and can be reused for any number of lookups.
+ * Keep instances of frequently read paths in constants, lookups with a {@link ConfigPath} do not allocate.
+ */
+public final class ConfigPath {
+    private static final String[] EMPTY = new String[0];
+    private final String path;
+    private final String[] parts;
+
+    private ConfigPath(String path, String[] parts) {
+        this.path = path;
+        this.parts = parts;
+    }
+
+    /**
+     * Parses a dot separated path, with the same splitting rules as {@code path.split("\\.")}.
+     */
+    public static ConfigPath of(String path) {
+        if (path.isEmpty()) {
+            return new ConfigPath(path, new String[]{path});
+        }
+
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = path.indexOf('.', start)) != -1) {
+            parts.add(path.substring(start, end));
+            start = end + 1;
+        }
+        parts.add(path.substring(start));
+
+        // Trailing empty parts are dropped, just like String#split does
+        int size = parts.size();
+        while (size > 0 && parts.get(size - 1).isEmpty()) {
+            size--;
+        }
+
+        return new ConfigPath(path, size == 0 ? EMPTY : parts.subList(0, size).toArray(EMPTY));
+    }
+
+    public int length() {
+        return parts.length;
+    }
+
+    public String get(int index) {
+        return parts[index];
+    }
+
+    public String last() {
+        return parts[parts.length - 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConfigPath)) {
+            return false;
+        }
+        return Arrays.equals(parts, ((ConfigPath) o).parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(parts);
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -0,0 +1,148 @@
+package net.skinsrestorer.axiom;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records metrics as JDK Flight Recorder events.
+ * The library targets Java 8, which has no Flight Recorder API, so the event types are created at runtime through {@code jdk.jfr.EventFactory}.
+ * The events are named {@code net.skinsrestorer.axiom.Load}, {@code Save}, {@code Merge} and {@code Lookup} and are listed in the category Axiom.
+ * Durations are measured by the library and recorded in the elapsed field, the events themselves are instant.
+ */
+final class FlightRecorderMetrics implements AxiomMetricsListener {
+    private final EventType load;
+    private final EventType save;
+    private final EventType merge;
+    private final EventType lookup;
+
+    private FlightRecorderMetrics(Jfr jfr) throws ReflectiveOperationException {
+        load = jfr.eventType("Load", "Configuration Load",
+                jfr.elapsed(), jfr.field(long.class, "characters", "Characters"),
+                jfr.field(int.class, "nodes", "Nodes"), jfr.field(int.class, "depth", "Depth"));
+        save = jfr.eventType("Save", "Configuration Save",
+                jfr.elapsed(), jfr.field(long.class, "characters", "Characters"));
+        merge = jfr.eventType("Merge", "Configuration Merge",
+                jfr.elapsed(), jfr.field(int.class, "nodes", "Nodes"), jfr.field(int.class, "depth", "Depth"));
+        lookup = jfr.eventType("Lookup", "Configuration Lookup",
+                jfr.field(String.class, "path", "Path"), jfr.field(boolean.class, "hit", "Hit"));
+    }
+
+    static AxiomMetricsListener create() {
+        try {
+            return new FlightRecorderMetrics(new Jfr());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new AxiomMetricsListener() {
+            };
+        }
+    }
+
+    @Override
+    public void loaded(long durationNanos, long characters, int nodes, int depth) {
+        load.commit(durationNanos, characters, nodes, depth);
+    }
+
+    @Override
+    public void saved(long durationNanos, long characters) {
+        save.commit(durationNanos, characters);
+    }
+
+    @Override
+    public void merged(long durationNanos, int nodes, int depth) {
+        merge.commit(durationNanos, nodes, depth);
+    }
+
+    @Override
+    public void lookup(ConfigPath path, boolean hit) {
+        lookup.commit(path.toString(), hit);
+    }
+
+    private static class EventType {
+        private final Jfr jfr;
+        private final Object factory;
+
+        private EventType(Jfr jfr, Object factory) {
+            this.jfr = jfr;
+            this.factory = factory;
+        }
+
+        private void commit(Object... values) {
+            try {
+                Object event = jfr.newEvent.invoke(factory);
+                if (!(Boolean) jfr.shouldCommit.invoke(event)) {
+                    return;
+                }
+
+                for (int i = 0; i < values.length; i++) {
+                    jfr.set.invoke(event, i, values[i]);
+                }
+                jfr.commit.invoke(event);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                // Metrics must never break the configuration
+            }
+        }
+    }
+
+    /**
+     * The reflective handles into {@code jdk.jfr}.
+     */
+    private static class Jfr {
+        private final Constructor<?> annotationElement;
+        private final Constructor<?> valueDescriptor;
+        private final Method create;
+        private final Method newEvent;
+        private final Method shouldCommit;
+        private final Method set;
+        private final Method commit;
+        private final Class<? extends Annotation> name;
+        private final Class<? extends Annotation> label;
+        private final Class<? extends Annotation> category;
+        private final Class<? extends Annotation> timespan;
+
+        private Jfr() throws ReflectiveOperationException {
+            Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+            Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+
+            annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+            valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+            create = eventFactoryClass.getMethod("create", List.class, List.class);
+            newEvent = eventFactoryClass.getMethod("newEvent");
+            shouldCommit = eventClass.getMethod("shouldCommit");
+            set = eventClass.getMethod("set", int.class, Object.class);
+            commit = eventClass.getMethod("commit");
+            name = annotation("jdk.jfr.Name");
+            label = annotation("jdk.jfr.Label");
+            category = annotation("jdk.jfr.Category");
+            timespan = annotation("jdk.jfr.Timespan");
+        }
+
+        private static Class<? extends Annotation> annotation(String className) throws ClassNotFoundException {
+            return Class.forName(className).asSubclass(Annotation.class);
+        }
+
+        private EventType eventType(String eventName, String eventLabel, Object... fields) throws ReflectiveOperationException {
+            List<Object> annotations = Arrays.asList(
+                    annotationElement.newInstance(name, "net.skinsrestorer.axiom." + eventName),
+                    annotationElement.newInstance(label, eventLabel),
+                    annotationElement.newInstance(category, new String[]{"Axiom"}));
+            return new EventType(this, create.invoke(null, annotations, new ArrayList<>(Arrays.asList(fields))));
+        }
+
+        private Object field(Class<?> type, String fieldName, String fieldLabel) throws ReflectiveOperationException {
+            return valueDescriptor.newInstance(type, fieldName, Collections.singletonList(annotationElement.newInstance(label, fieldLabel)));
+        }
+
+        private Object elapsed() throws ReflectiveOperationException {
+            return valueDescriptor.newInstance(long.class, "elapsed", Arrays.asList(
+                    annotationElement.newInstance(label, "Elapsed"),
+                    annotationElement.newInstance(timespan, "NANOSECONDS")));
+        }
+    }
+}
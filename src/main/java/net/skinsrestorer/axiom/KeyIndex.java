@@ -0,0 +1,80 @@
+package net.skinsrestorer.axiom;
+
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index from scalar key to tuple position for a single mapping node.
+ * The index remembers the tuple list and size it was built for, so a stale index is detected and rebuilt
+ * instead of returning wrong positions.
+ */
+final class KeyIndex {
+    /**
+     * Mapping nodes with fewer tuples than this are scanned linearly, which is faster than hashing.
+     */
+    static final int THRESHOLD = 8;
+
+    private final List<NodeTuple> tuples;
+    private final Map<String, Integer> positions;
+    private int size;
+
+    KeyIndex(List<NodeTuple> tuples) {
+        this.tuples = tuples;
+        this.size = tuples.size();
+        this.positions = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+        for (int i = 0; i < size; i++) {
+            String key = keyOf(tuples.get(i));
+            if (key != null) {
+                positions.putIfAbsent(key, i);
+            }
+        }
+    }
+
+    boolean isValidFor(List<NodeTuple> tuples) {
+        return this.tuples == tuples && this.size == tuples.size();
+    }
+
+    int get(String key) {
+        Integer position = positions.get(key);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Records a tuple that was just appended to the list.
+     *
+     * @return false if the index was already stale and has to be rebuilt
+     */
+    boolean appended(List<NodeTuple> tuples, String key) {
+        if (this.tuples != tuples || this.size != tuples.size() - 1) {
+            return false;
+        }
+
+        if (key != null) {
+            positions.putIfAbsent(key, size);
+        }
+        size++;
+        return true;
+    }
+
+    static int scan(List<NodeTuple> tuples, String key) {
+        for (int i = 0, size = tuples.size(); i < size; i++) {
+            if (key.equals(keyOf(tuples.get(i)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static String keyOf(NodeTuple tuple) {
+        Node keyNode = tuple.getKeyNode();
+        if (keyNode instanceof ScalarNode) {
+            return ((ScalarNode) keyNode).getValue();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,327 @@
+package net.skinsrestorer.axiom;
+
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.comments.CommentType;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.Tag;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * A root mapping whose top-level sections are composed on first access.
+ * Loading makes one pass over the parser events to find where every section starts and ends in the source,
+ * looking up a top-level key only composes that section. Anything that needs the whole tree through
+ * {@link #getValue()} composes the remaining sections first, so the node behaves like an eagerly composed one.
+ * <p>
+ * A section covers its key, its value and the comments in front of it, exactly the nodes the composer would attach them to.
+ * Marks of lazily composed sections are relative to the section.
+ */
+final class LazyMappingNode extends MappingNode {
+    private static final String PLACEHOLDER = "_: 0\n";
+
+    private final YamlEngine yaml;
+    private volatile boolean materialized;
+    private String source;
+    private List<Section> sections;
+    private Map<String, Section> sectionsByKey;
+    private int tailStart;
+
+    private LazyMappingNode(YamlEngine yaml, String source, List<Section> sections, int tailStart, MappingStartEvent start, MappingEndEvent end) {
+        super(Tag.MAP, true, new ArrayList<>(sections.size()), start.getStartMark(), end.getEndMark(), DumperOptions.FlowStyle.BLOCK);
+        this.yaml = yaml;
+        this.source = source;
+        this.sections = sections;
+        this.tailStart = tailStart;
+        this.sectionsByKey = new HashMap<>(Math.max(16, (int) (sections.size() / 0.75f) + 1));
+        for (Section section : sections) {
+            sectionsByKey.putIfAbsent(section.key, section);
+        }
+    }
+
+    /**
+     * Finds the top-level sections of a document.
+     *
+     * @return the lazy root, or null if the document has to be composed eagerly.
+     * This is the case for documents that aren't a single block mapping at column zero, use aliases or don't parse.
+     */
+    @Nullable
+    static LazyMappingNode parse(YamlEngine yaml, String source) {
+        SourceIndex index = new SourceIndex(source);
+        List<Section> sections = new ArrayList<>();
+        MappingStartEvent rootStart = null;
+        MappingEndEvent rootEnd = null;
+        int depth = 0;
+        boolean expectKey = false;
+        int pendingComments = -1;
+
+        try {
+            for (Event event : yaml.parse(new StringReader(source))) {
+                switch (event.getEventId()) {
+                    case StreamStart:
+                    case StreamEnd:
+                        continue;
+                    case DocumentStart:
+                        DocumentStartEvent documentStart = (DocumentStartEvent) event;
+                        if (rootStart != null || documentStart.getExplicit()) {
+                            return null;
+                        }
+                        continue;
+                    case DocumentEnd:
+                        if (((DocumentEndEvent) event).getExplicit()) {
+                            return null;
+                        }
+                        continue;
+                    case Comment:
+                        // Block comments and blank lines belong to the next node, inline comments to the previous one
+                        if (((CommentEvent) event).getCommentType() != CommentType.IN_LINE && pendingComments < 0) {
+                            pendingComments = index.charIndex(event.getStartMark().getIndex());
+                        }
+                        continue;
+                    case Alias:
+                        return null;
+                    case MappingEnd:
+                    case SequenceEnd:
+                        depth--;
+                        if (depth == 0) {
+                            rootEnd = (MappingEndEvent) event;
+                        } else if (depth == 1) {
+                            expectKey = true;
+                        }
+                        continue;
+                    default:
+                        break;
+                }
+
+                if (depth == 0) {
+                    if (rootStart != null || !(event instanceof MappingStartEvent)) {
+                        return null;
+                    }
+
+                    MappingStartEvent mappingStart = (MappingStartEvent) event;
+                    if (mappingStart.isFlow() || mappingStart.getTag() != null || mappingStart.getAnchor() != null) {
+                        return null;
+                    }
+                    rootStart = mappingStart;
+                    expectKey = true;
+                    depth++;
+                    // Comments in front of the document belong to the first key
+                    continue;
+                } else if (depth == 1 && expectKey) {
+                    if (!(event instanceof ScalarEvent) || event.getStartMark().getColumn() != 0) {
+                        return null;
+                    }
+
+                    int start = index.lineStart(pendingComments >= 0 ? pendingComments : index.charIndex(event.getStartMark().getIndex()));
+                    sections.add(new Section(((ScalarEvent) event).getValue(), start));
+                    expectKey = false;
+                } else if (depth == 1 && event instanceof ScalarEvent) {
+                    expectKey = true;
+                }
+
+                if (event instanceof CollectionStartEvent) {
+                    depth++;
+                }
+                pendingComments = -1;
+            }
+        } catch (YAMLException e) {
+            return null;
+        }
+
+        if (rootStart == null || rootEnd == null || sections.isEmpty()) {
+            return null;
+        }
+
+        int tailStart = pendingComments >= 0 ? index.lineStart(pendingComments) : source.length();
+        for (int i = 0; i < sections.size(); i++) {
+            sections.get(i).end = i + 1 < sections.size() ? sections.get(i + 1).start : tailStart;
+        }
+
+        return new LazyMappingNode(yaml, source, sections, tailStart, rootStart, rootEnd);
+    }
+
+    boolean isMaterialized() {
+        return materialized;
+    }
+
+    /**
+     * Composes only the section of a top-level key.
+     *
+     * @return the tuple of the key or null if there is no such key
+     */
+    @Nullable
+    synchronized NodeTuple getTuple(String key) {
+        if (materialized) {
+            for (NodeTuple tuple : super.getValue()) {
+                if (key.equals(KeyIndex.keyOf(tuple))) {
+                    return tuple;
+                }
+            }
+            return null;
+        }
+
+        Section section = sectionsByKey.get(key);
+        if (section == null) {
+            return null;
+        }
+
+        if (section.tuple == null) {
+            section.tuple = composeSection(section);
+        }
+        return section.tuple;
+    }
+
+    /**
+     * @return the top-level keys or null if the mapping is already materialized
+     */
+    @Nullable
+    synchronized List<String> getKeys() {
+        if (materialized) {
+            return null;
+        }
+
+        List<String> keys = new ArrayList<>(sections.size());
+        for (Section section : sections) {
+            keys.add(section.key);
+        }
+        return keys;
+    }
+
+    /**
+     * Writes sections that were never composed verbatim from the source and serializes the others.
+     */
+    synchronized void write(Writer writer) throws IOException {
+        if (materialized) {
+            yaml.serialize(this, writer);
+            return;
+        }
+
+        for (Section section : sections) {
+            if (section.tuple == null) {
+                writer.write(source, section.start, section.end - section.start);
+            } else {
+                List<NodeTuple> tuples = new ArrayList<>(1);
+                tuples.add(section.tuple);
+                yaml.serialize(new MappingNode(Tag.MAP, true, tuples, null, null, DumperOptions.FlowStyle.BLOCK), writer);
+            }
+        }
+        writer.write(source, tailStart, source.length() - tailStart);
+    }
+
+    @Override
+    public List<NodeTuple> getValue() {
+        if (!materialized) {
+            materialize();
+        }
+        return super.getValue();
+    }
+
+    @Override
+    public void setValue(List<NodeTuple> value) {
+        if (!materialized) {
+            materialize();
+        }
+        super.setValue(value);
+    }
+
+    private synchronized void materialize() {
+        if (materialized) {
+            return;
+        }
+
+        List<NodeTuple> tuples = super.getValue();
+        boolean untouched = true;
+        for (Section section : sections) {
+            untouched &= section.tuple == null;
+        }
+
+        if (untouched) {
+            MappingNode node = compose(source);
+            tuples.addAll(node.getValue());
+            Nodes.copyComments(node, this);
+        } else {
+            for (Section section : sections) {
+                tuples.add(section.tuple != null ? section.tuple : composeSection(section));
+            }
+
+            if (tailStart < source.length()) {
+                setEndComments(compose(PLACEHOLDER + source.substring(tailStart)).getEndComments());
+            }
+        }
+
+        source = null;
+        sections = null;
+        sectionsByKey = null;
+        materialized = true;
+    }
+
+    /**
+     * Composes a section behind a placeholder key, so its leading comments are attached to its key just like in the full document.
+     */
+    private NodeTuple composeSection(Section section) {
+        List<NodeTuple> tuples = compose(PLACEHOLDER + source.substring(section.start, section.end)).getValue();
+        if (tuples.size() != 2) {
+            throw new IllegalStateException("Section " + section.key + " did not compose to a single tuple");
+        }
+        return tuples.get(1);
+    }
+
+    private MappingNode compose(String document) {
+        Node node = yaml.compose(new StringReader(document));
+        if (!(node instanceof MappingNode)) {
+            throw new IllegalStateException("Source no longer composes to a mapping");
+        }
+        return (MappingNode) node;
+    }
+
+    private static class Section {
+        private final String key;
+        private final int start;
+        private int end;
+        private NodeTuple tuple;
+
+        private Section(String key, int start) {
+            this.key = key;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Translates the code point indexes of marks into string indexes, marks must be passed in ascending order.
+     */
+    private static class SourceIndex {
+        private final String source;
+        private final boolean surrogates;
+        private int codePoint;
+        private int charIndex;
+
+        private SourceIndex(String source) {
+            this.source = source;
+            this.surrogates = source.codePointCount(0, source.length()) != source.length();
+        }
+
+        private int charIndex(int codePointIndex) {
+            if (!surrogates) {
+                return codePointIndex;
+            }
+
+            charIndex = source.offsetByCodePoints(charIndex, codePointIndex - codePoint);
+            codePoint = codePointIndex;
+            return charIndex;
+        }
+
+        private int lineStart(int index) {
+            while (index > 0 && source.charAt(index - 1) != '\n') {
+                index--;
+            }
+            return index;
+        }
+    }
+}
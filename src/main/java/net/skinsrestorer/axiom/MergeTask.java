@@ -0,0 +1,168 @@
+package net.skinsrestorer.axiom;
+
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merges a default mapping node into a current one.
+ * Every level is a hash join of the default keys against the current keys, so a level costs time linear in its width.
+ * Child sections are independent of each other, in large trees they are merged in parallel on a fork join pool.
+ */
+final class MergeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default trees with at least this many nodes are merged in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 8192;
+
+    private final MappingNode current;
+    private final MappingNode defaults;
+    private final boolean overWriteComments;
+    private final boolean overWriteInvalid;
+    private final boolean overWrite;
+    private final Shared shared;
+
+    private MergeTask(MappingNode current, MappingNode defaults, boolean overWriteComments, boolean overWriteInvalid, boolean overWrite, Shared shared) {
+        this.current = current;
+        this.defaults = defaults;
+        this.overWriteComments = overWriteComments;
+        this.overWriteInvalid = overWriteInvalid;
+        this.overWrite = overWrite;
+        this.shared = shared;
+    }
+
+    static void merge(MappingNode current, MappingNode defaults, boolean overWriteComments, boolean overWriteInvalid, boolean overWrite) {
+        merge(current, defaults, overWriteComments, overWriteInvalid, overWrite, countNodes(defaults, PARALLEL_THRESHOLD) >= PARALLEL_THRESHOLD);
+    }
+
+    static void merge(MappingNode current, MappingNode defaults, boolean overWriteComments, boolean overWriteInvalid, boolean overWrite, boolean parallel) {
+        if (!parallel) {
+            new MergeTask(current, defaults, overWriteComments, overWriteInvalid, overWrite, null).compute();
+            return;
+        }
+
+        Shared shared = new Shared();
+        shared.claimed.add(current);
+        ForkJoinPool.commonPool().invoke(new MergeTask(current, defaults, overWriteComments, overWriteInvalid, overWrite, shared));
+
+        // Nodes that are reachable through more than one path are merged one after another
+        MergeTask deferred;
+        while ((deferred = shared.deferred.poll()) != null) {
+            deferred.compute();
+        }
+    }
+
+    @Override
+    protected void compute() {
+        List<MergeTask> children = mergeLevel();
+        if (children.isEmpty()) {
+            return;
+        }
+
+        if (shared == null) {
+            for (MergeTask child : children) {
+                child.compute();
+            }
+            return;
+        }
+
+        List<MergeTask> forked = new ArrayList<>(children.size());
+        for (MergeTask child : children) {
+            if (!shared.claimed.add(child.current)) {
+                shared.deferred.add(new MergeTask(child.current, child.defaults, overWriteComments, overWriteInvalid, false, null));
+            } else if (getSurplusQueuedTaskCount() > 3) {
+                child.compute();
+            } else {
+                child.fork();
+                forked.add(child);
+            }
+        }
+
+        for (MergeTask task : forked) {
+            task.join();
+        }
+    }
+
+    /**
+     * Merges the direct children of this level.
+     *
+     * @return the child sections that still have to be merged
+     */
+    private List<MergeTask> mergeLevel() {
+        AxiomConfigurationSection.setComments(current, defaults, overWriteComments);
+
+        List<NodeTuple> tuples = current.getValue();
+        Map<String, Integer> positions = new HashMap<>(Math.max(16, (int) (tuples.size() / 0.75f) + 1));
+        for (int i = 0; i < tuples.size(); i++) {
+            String key = KeyIndex.keyOf(tuples.get(i));
+            if (key != null) {
+                positions.putIfAbsent(key, i);
+            }
+        }
+
+        List<MergeTask> children = Collections.emptyList();
+        for (NodeTuple defaultTuple : defaults.getValue()) {
+            String key = KeyIndex.keyOf(defaultTuple);
+            if (key == null) {
+                continue;
+            }
+
+            Node defaultNode = defaultTuple.getValueNode();
+            Integer position = positions.get(key);
+            if (position == null) {
+                positions.put(key, tuples.size());
+                tuples.add(new NodeTuple(defaultTuple.getKeyNode(), defaultNode));
+            } else if (overWrite) {
+                tuples.set(position, new NodeTuple(defaultTuple.getKeyNode(), defaultNode));
+            } else {
+                Node currentNode = tuples.get(position).getValueNode();
+                AxiomConfigurationSection.setComments(currentNode, defaultNode, overWriteComments);
+
+                if (defaultNode instanceof MappingNode) {
+                    if (currentNode instanceof MappingNode) {
+                        if (children.isEmpty()) {
+                            children = new ArrayList<>();
+                        }
+                        children.add(new MergeTask((MappingNode) currentNode, (MappingNode) defaultNode, overWriteComments, overWriteInvalid, false, shared));
+                    } else if (overWriteInvalid) {
+                        tuples.set(position, new NodeTuple(defaultTuple.getKeyNode(), defaultNode));
+                    }
+                }
+            }
+        }
+
+        return children;
+    }
+
+    /**
+     * Counts the nodes of a tree, but stops once the limit is reached.
+     */
+    private static int countNodes(Node node, int limit) {
+        int count = 1;
+        if (node instanceof MappingNode) {
+            for (NodeTuple tuple : ((MappingNode) node).getValue()) {
+                if (count >= limit) {
+                    break;
+                }
+                count += countNodes(tuple.getValueNode(), limit - count);
+            }
+        } else if (node instanceof SequenceNode) {
+            count += ((SequenceNode) node).getValue().size();
+        }
+        return count;
+    }
+
+    private static class Shared {
+        private final Set<MappingNode> claimed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private final Queue<MergeTask> deferred = new ConcurrentLinkedQueue<>();
+    }
+}
@@ -0,0 +1,343 @@
+package net.skinsrestorer.axiom;
+
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.comments.CommentLine;
+import org.yaml.snakeyaml.comments.CommentType;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.nodes.*;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Binary cache of a composed node tree, so loading an unchanged file doesn't have to parse YAML.
+ * The cache stores tags, styles, anchors, comments and marks and is keyed by a hash of the source it was composed from.
+ * <p>
+ * Strings and nodes are written once, later occurrences are back-references to the first one.
+ * This keeps repeated keys and tags small and lets aliased nodes be shared again after reading.
+ * Marks keep their position but not the source snippet, which is only used in error messages.
+ */
+final class NodeCache {
+    private static final int MAGIC = 0x4158434E; // AXCN
+    private static final int VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+
+    private static final int NEW = 1;
+    private static final int REFERENCE = 2;
+
+    private static final byte SCALAR = 0;
+    private static final byte MAPPING = 1;
+    private static final byte SEQUENCE = 2;
+    private static final byte SHARED = 3;
+
+    private static final DumperOptions.ScalarStyle[] SCALAR_STYLES = DumperOptions.ScalarStyle.values();
+    private static final DumperOptions.FlowStyle[] FLOW_STYLES = DumperOptions.FlowStyle.values();
+    private static final CommentType[] COMMENT_TYPES = CommentType.values();
+    private static final int[] NO_BUFFER = new int[0];
+
+    private NodeCache() {
+    }
+
+    /**
+     * Reads a cached tree with a memory mapped read.
+     *
+     * @return the tree, or null if there is no cache, it was written for other content or it can't be read
+     */
+    @Nullable
+    static MappingNode read(Path file, byte[] sourceHash) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+
+            byte[] hash = new byte[HASH_LENGTH];
+            buffer.get(hash);
+            if (!Arrays.equals(hash, sourceHash)) {
+                return null;
+            }
+
+            Node root = new CacheReader(buffer).readNode();
+            return root instanceof MappingNode && !buffer.hasRemaining() ? (MappingNode) root : null;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NullPointerException e) {
+            // A truncated or corrupt cache is treated like a missing one
+            return null;
+        }
+    }
+
+    /**
+     * Writes a tree into a temporary file and atomically moves it over the cache file.
+     */
+    static void write(Path file, byte[] sourceHash, MappingNode root) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path temp = AtomicFiles.createTemp(target);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.write(sourceHash);
+                new CacheWriter(output).writeNode(root);
+            }
+
+            AtomicFiles.replace(temp, target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static class CacheWriter {
+        private final DataOutputStream output;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Node, Integer> nodes = new IdentityHashMap<>();
+
+        private CacheWriter(DataOutputStream output) {
+            this.output = output;
+        }
+
+        private void writeNode(Node node) throws IOException {
+            Integer id = nodes.get(node);
+            if (id != null) {
+                output.writeByte(SHARED);
+                writeVarInt(id);
+                return;
+            }
+            nodes.put(node, nodes.size());
+
+            if (node instanceof ScalarNode) {
+                ScalarNode scalarNode = (ScalarNode) node;
+                output.writeByte(SCALAR);
+                writeCommon(node);
+                output.writeByte(scalarNode.getScalarStyle().ordinal());
+                writeString(scalarNode.getValue());
+            } else if (node instanceof MappingNode) {
+                MappingNode mappingNode = (MappingNode) node;
+                output.writeByte(MAPPING);
+                writeCommon(node);
+                output.writeByte(mappingNode.getFlowStyle().ordinal());
+                output.writeBoolean(mappingNode.isMerged());
+                writeVarInt(mappingNode.getValue().size());
+                for (NodeTuple tuple : mappingNode.getValue()) {
+                    writeNode(tuple.getKeyNode());
+                    writeNode(tuple.getValueNode());
+                }
+            } else if (node instanceof SequenceNode) {
+                SequenceNode sequenceNode = (SequenceNode) node;
+                output.writeByte(SEQUENCE);
+                writeCommon(node);
+                output.writeByte(sequenceNode.getFlowStyle().ordinal());
+                writeVarInt(sequenceNode.getValue().size());
+                for (Node value : sequenceNode.getValue()) {
+                    writeNode(value);
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported node " + node.getNodeId());
+            }
+        }
+
+        private void writeCommon(Node node) throws IOException {
+            writeString(node.getTag().getValue());
+            writeString(node.getAnchor());
+            writeMark(node.getStartMark());
+            writeMark(node.getEndMark());
+            writeComments(node.getBlockComments());
+            writeComments(node.getInLineComments());
+            writeComments(node.getEndComments());
+        }
+
+        private void writeComments(@Nullable List<CommentLine> comments) throws IOException {
+            if (comments == null) {
+                writeVarInt(0);
+                return;
+            }
+
+            writeVarInt(comments.size() + 1);
+            for (CommentLine comment : comments) {
+                output.writeByte(comment.getCommentType().ordinal());
+                writeString(comment.getValue());
+                writeMark(comment.getStartMark());
+                writeMark(comment.getEndMark());
+            }
+        }
+
+        private void writeMark(@Nullable Mark mark) throws IOException {
+            if (mark == null) {
+                output.writeBoolean(false);
+                return;
+            }
+
+            output.writeBoolean(true);
+            writeString(mark.getName());
+            writeVarInt(mark.getIndex());
+            writeVarInt(mark.getLine());
+            writeVarInt(mark.getColumn());
+        }
+
+        private void writeString(@Nullable String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+
+            Integer id = strings.get(value);
+            if (id != null) {
+                writeVarInt(REFERENCE + id);
+                return;
+            }
+            strings.put(value, strings.size());
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(NEW);
+            writeVarInt(bytes.length);
+            output.write(bytes);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                output.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            output.writeByte(value);
+        }
+    }
+
+    private static class CacheReader {
+        private final ByteBuffer buffer;
+        private final List<String> strings = new ArrayList<>();
+        private final List<Node> nodes = new ArrayList<>();
+
+        private CacheReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private Node readNode() {
+            byte kind = buffer.get();
+            if (kind == SHARED) {
+                return nodes.get(readVarInt());
+            }
+
+            Tag tag = new Tag(readString());
+            String anchor = readString();
+            Mark startMark = readMark();
+            Mark endMark = readMark();
+            List<CommentLine> blockComments = readComments();
+            List<CommentLine> inLineComments = readComments();
+            List<CommentLine> endComments = readComments();
+
+            Node node;
+            switch (kind) {
+                case SCALAR: {
+                    DumperOptions.ScalarStyle style = SCALAR_STYLES[buffer.get()];
+                    node = new ScalarNode(tag, true, readString(), startMark, endMark, style);
+                    nodes.add(node);
+                    break;
+                }
+                case MAPPING: {
+                    DumperOptions.FlowStyle style = FLOW_STYLES[buffer.get()];
+                    boolean merged = buffer.get() != 0;
+                    int size = readVarInt();
+                    List<NodeTuple> tuples = new ArrayList<>(size);
+                    MappingNode mappingNode = new MappingNode(tag, true, tuples, startMark, endMark, style);
+                    mappingNode.setMerged(merged);
+                    nodes.add(mappingNode);
+                    for (int i = 0; i < size; i++) {
+                        Node key = readNode();
+                        tuples.add(new NodeTuple(key, readNode()));
+                    }
+                    node = mappingNode;
+                    break;
+                }
+                case SEQUENCE: {
+                    DumperOptions.FlowStyle style = FLOW_STYLES[buffer.get()];
+                    int size = readVarInt();
+                    List<Node> values = new ArrayList<>(size);
+                    node = new SequenceNode(tag, true, values, startMark, endMark, style);
+                    nodes.add(node);
+                    for (int i = 0; i < size; i++) {
+                        values.add(readNode());
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown node kind " + kind);
+            }
+
+            node.setAnchor(anchor);
+            node.setBlockComments(blockComments);
+            node.setInLineComments(inLineComments);
+            node.setEndComments(endComments);
+            return node;
+        }
+
+        @Nullable
+        private List<CommentLine> readComments() {
+            int size = readVarInt();
+            if (size == 0) {
+                return null;
+            }
+
+            List<CommentLine> comments = new ArrayList<>(size - 1);
+            for (int i = 1; i < size; i++) {
+                CommentType type = COMMENT_TYPES[buffer.get()];
+                String value = readString();
+                Mark startMark = readMark();
+                comments.add(new CommentLine(startMark, readMark(), value, type));
+            }
+            return comments;
+        }
+
+        @Nullable
+        private Mark readMark() {
+            if (buffer.get() == 0) {
+                return null;
+            }
+
+            String name = readString();
+            int index = readVarInt();
+            int line = readVarInt();
+            return new Mark(name, index, line, readVarInt(), NO_BUFFER, 0);
+        }
+
+        @Nullable
+        private String readString() {
+            int id = readVarInt();
+            if (id == 0) {
+                return null;
+            } else if (id >= REFERENCE) {
+                return strings.get(id - REFERENCE);
+            }
+
+            byte[] bytes = new byte[readVarInt()];
+            buffer.get(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package net.skinsrestorer.axiom;
+
+import org.yaml.snakeyaml.comments.CommentLine;
+import org.yaml.snakeyaml.nodes.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Helpers for working with SnakeYAML node trees.
+ */
+final class Nodes {
+    /**
+     * Canonical tags for compacted trees, the composer creates a new tag for every explicitly tagged node.
+     */
+    private static final Map<Tag, Tag> TAGS = new ConcurrentHashMap<>();
+
+    private Nodes() {
+    }
+
+    /**
+     * Deep copies a node tree, keeping tags, styles, marks, anchors and comments.
+     * Nodes that are referenced more than once (aliases) are copied once, so the copy serializes like the original.
+     */
+    static <T extends Node> T copy(T node) {
+        return copy(node, new IdentityHashMap<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Node> T copy(T node, Map<Node, Node> copies) {
+        Node existing = copies.get(node);
+        if (existing != null) {
+            return (T) existing;
+        }
+
+        Node copy;
+        if (node instanceof MappingNode) {
+            MappingNode mappingNode = (MappingNode) node;
+            List<NodeTuple> tuples = new ArrayList<>(mappingNode.getValue().size());
+            MappingNode mappingCopy = new MappingNode(mappingNode.getTag(), true, tuples, mappingNode.getStartMark(), mappingNode.getEndMark(), mappingNode.getFlowStyle());
+            mappingCopy.setMerged(mappingNode.isMerged());
+            copies.put(node, mappingCopy);
+            for (NodeTuple tuple : mappingNode.getValue()) {
+                tuples.add(new NodeTuple(copy(tuple.getKeyNode(), copies), copy(tuple.getValueNode(), copies)));
+            }
+            copy = mappingCopy;
+        } else if (node instanceof SequenceNode) {
+            SequenceNode sequenceNode = (SequenceNode) node;
+            List<Node> values = new ArrayList<>(sequenceNode.getValue().size());
+            copy = new SequenceNode(sequenceNode.getTag(), true, values, sequenceNode.getStartMark(), sequenceNode.getEndMark(), sequenceNode.getFlowStyle());
+            copies.put(node, copy);
+            for (Node value : sequenceNode.getValue()) {
+                values.add(copy(value, copies));
+            }
+        } else if (node instanceof ScalarNode) {
+            ScalarNode scalarNode = (ScalarNode) node;
+            copy = new ScalarNode(scalarNode.getTag(), scalarNode.getValue(), scalarNode.getStartMark(), scalarNode.getEndMark(), scalarNode.getScalarStyle());
+            copies.put(node, copy);
+        } else {
+            // Anchor nodes only exist while composing, there is nothing to copy
+            return node;
+        }
+
+        copyMetadata(node, copy);
+        return (T) copy;
+    }
+
+    /**
+     * Rebuilds a tree with a smaller heap footprint, the result serializes like the original.
+     * Marks are dropped, which also releases the parts of the source they point into, key strings are interned,
+     * tags are shared, empty comment lists are replaced by a single shared list and lists are sized to their content.
+     */
+    static <T extends Node> T compact(T node) {
+        return compact(node, false, new IdentityHashMap<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Node> T compact(T node, boolean key, Map<Node, Node> copies) {
+        Node existing = copies.get(node);
+        if (existing != null) {
+            return (T) existing;
+        }
+
+        Tag tag = TAGS.computeIfAbsent(node.getTag(), t -> t);
+        Node copy;
+        if (node instanceof MappingNode) {
+            MappingNode mappingNode = (MappingNode) node;
+            List<NodeTuple> tuples = new ArrayList<>(mappingNode.getValue().size());
+            MappingNode mappingCopy = new MappingNode(tag, true, tuples, null, null, mappingNode.getFlowStyle());
+            mappingCopy.setMerged(mappingNode.isMerged());
+            copies.put(node, mappingCopy);
+            for (NodeTuple tuple : mappingNode.getValue()) {
+                tuples.add(new NodeTuple(compact(tuple.getKeyNode(), true, copies), compact(tuple.getValueNode(), false, copies)));
+            }
+            copy = mappingCopy;
+        } else if (node instanceof SequenceNode) {
+            SequenceNode sequenceNode = (SequenceNode) node;
+            List<Node> values = new ArrayList<>(sequenceNode.getValue().size());
+            copy = new SequenceNode(tag, true, values, null, null, sequenceNode.getFlowStyle());
+            copies.put(node, copy);
+            for (Node value : sequenceNode.getValue()) {
+                values.add(compact(value, false, copies));
+            }
+        } else if (node instanceof ScalarNode) {
+            ScalarNode scalarNode = (ScalarNode) node;
+            // The same keys repeat across sections and files, values rarely do
+            String value = key ? scalarNode.getValue().intern() : scalarNode.getValue();
+            copy = new ScalarNode(tag, value, null, null, scalarNode.getScalarStyle());
+            copies.put(node, copy);
+        } else {
+            return node;
+        }
+
+        copy.setAnchor(node.getAnchor());
+        copy.setBlockComments(compactComments(node.getBlockComments()));
+        copy.setInLineComments(compactComments(node.getInLineComments()));
+        copy.setEndComments(compactComments(node.getEndComments()));
+        return (T) copy;
+    }
+
+    private static List<CommentLine> compactComments(List<CommentLine> comments) {
+        if (comments == null || comments.isEmpty()) {
+            return comments == null ? null : Collections.emptyList();
+        }
+
+        List<CommentLine> compacted = new ArrayList<>(comments.size());
+        for (CommentLine comment : comments) {
+            compacted.add(new CommentLine(null, null, comment.getValue(), comment.getCommentType()));
+        }
+        return compacted;
+    }
+
+    /**
+     * Measures a tree, nodes that are referenced more than once are counted once.
+     * Lazily loaded roots that aren't composed yet are not measured.
+     *
+     * @return the number of nodes, key nodes included, and the depth of the tree, or -1 for both if it wasn't measured
+     */
+    static int[] measure(Node node) {
+        if (node instanceof LazyMappingNode && !((LazyMappingNode) node).isMaterialized()) {
+            return new int[]{-1, -1};
+        }
+
+        Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int[] size = new int[2];
+        measure(node, 0, seen, size);
+        return size;
+    }
+
+    private static void measure(Node node, int depth, Set<Node> seen, int[] size) {
+        if (!seen.add(node)) {
+            return;
+        }
+
+        size[0]++;
+        size[1] = Math.max(size[1], depth);
+        if (node instanceof MappingNode) {
+            for (NodeTuple tuple : ((MappingNode) node).getValue()) {
+                measure(tuple.getKeyNode(), depth + 1, seen, size);
+                measure(tuple.getValueNode(), depth + 1, seen, size);
+            }
+        } else if (node instanceof SequenceNode) {
+            for (Node value : ((SequenceNode) node).getValue()) {
+                measure(value, depth + 1, seen, size);
+            }
+        }
+    }
+
+    /**
+     * Copies the anchor and comments from one node to another.
+     */
+    static void copyMetadata(Node from, Node to) {
+        to.setAnchor(from.getAnchor());
+        copyComments(from, to);
+    }
+
+    /**
+     * Copies only the comments from one node to another.
+     */
+    static void copyComments(Node from, Node to) {
+        to.setBlockComments(from.getBlockComments());
+        to.setInLineComments(from.getInLineComments());
+        to.setEndComments(from.getEndComments());
+    }
+
+    /**
+     * Copies the comments of every node of a tree onto a tree that is {@link #equal(Node, Node) equal} to it.
+     */
+    static void copyAllComments(Node from, Node to) {
+        if (from == to) {
+            return;
+        }
+
+        copyComments(from, to);
+        if (from instanceof MappingNode) {
+            List<NodeTuple> fromTuples = ((MappingNode) from).getValue();
+            List<NodeTuple> toTuples = ((MappingNode) to).getValue();
+            for (int i = 0; i < fromTuples.size(); i++) {
+                copyAllComments(fromTuples.get(i).getKeyNode(), toTuples.get(i).getKeyNode());
+                copyAllComments(fromTuples.get(i).getValueNode(), toTuples.get(i).getValueNode());
+            }
+        } else if (from instanceof SequenceNode) {
+            List<Node> fromValues = ((SequenceNode) from).getValue();
+            List<Node> toValues = ((SequenceNode) to).getValue();
+            for (int i = 0; i < fromValues.size(); i++) {
+                copyAllComments(fromValues.get(i), toValues.get(i));
+            }
+        }
+    }
+
+    /**
+     * Compares two trees by tag, style and value, ignoring comments and marks.
+     */
+    static boolean equal(Node a, Node b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.getNodeId() != b.getNodeId() || !a.getTag().equals(b.getTag())) {
+            return false;
+        }
+
+        if (a instanceof ScalarNode) {
+            ScalarNode scalarA = (ScalarNode) a;
+            ScalarNode scalarB = (ScalarNode) b;
+            return scalarA.getScalarStyle() == scalarB.getScalarStyle() && scalarA.getValue().equals(scalarB.getValue());
+        } else if (a instanceof MappingNode) {
+            MappingNode mappingA = (MappingNode) a;
+            MappingNode mappingB = (MappingNode) b;
+            List<NodeTuple> tuplesA = mappingA.getValue();
+            List<NodeTuple> tuplesB = mappingB.getValue();
+            if (mappingA.getFlowStyle() != mappingB.getFlowStyle() || tuplesA.size() != tuplesB.size()) {
+                return false;
+            }
+            for (int i = 0; i < tuplesA.size(); i++) {
+                if (!equal(tuplesA.get(i).getKeyNode(), tuplesB.get(i).getKeyNode())
+                        || !equal(tuplesA.get(i).getValueNode(), tuplesB.get(i).getValueNode())) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (a instanceof SequenceNode) {
+            SequenceNode sequenceA = (SequenceNode) a;
+            SequenceNode sequenceB = (SequenceNode) b;
+            List<Node> valuesA = sequenceA.getValue();
+            List<Node> valuesB = sequenceB.getValue();
+            if (sequenceA.getFlowStyle() != sequenceB.getFlowStyle() || valuesA.size() != valuesB.size()) {
+                return false;
+            }
+            for (int i = 0; i < valuesA.size(); i++) {
+                if (!equal(valuesA.get(i), valuesB.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,75 @@
+package net.skinsrestorer.axiom;
+
+import org.yaml.snakeyaml.nodes.*;
+
+import java.util.*;
+
+/**
+ * Reconciles a freshly loaded tree into the current one.
+ * Subtrees that did not change keep their identity, so sections and cached values taken from them stay valid.
+ */
+final class Reconciler {
+    private final TreeContext context;
+    private final List<String> changed = new ArrayList<>();
+
+    private Reconciler(TreeContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @return the paths whose values were added, removed or changed, in document order
+     */
+    static List<String> reconcile(MappingNode current, MappingNode fresh, TreeContext context) {
+        Reconciler reconciler = new Reconciler(context);
+        reconciler.reconcileMapping(current, fresh, "");
+        return reconciler.changed;
+    }
+
+    private void reconcileMapping(MappingNode current, MappingNode fresh, String prefix) {
+        Nodes.copyComments(fresh, current);
+
+        Map<String, NodeTuple> currentTuples = new LinkedHashMap<>();
+        for (NodeTuple tuple : current.getValue()) {
+            String key = KeyIndex.keyOf(tuple);
+            if (key != null) {
+                currentTuples.putIfAbsent(key, tuple);
+            }
+        }
+
+        List<NodeTuple> tuples = new ArrayList<>(fresh.getValue().size());
+        for (NodeTuple freshTuple : fresh.getValue()) {
+            String key = KeyIndex.keyOf(freshTuple);
+            NodeTuple currentTuple = key == null ? null : currentTuples.remove(key);
+            if (currentTuple == null) {
+                if (key != null) {
+                    changed.add(prefix + key);
+                }
+                tuples.add(freshTuple);
+                continue;
+            }
+
+            Node currentValue = currentTuple.getValueNode();
+            Node freshValue = freshTuple.getValueNode();
+            Nodes.copyComments(freshTuple.getKeyNode(), currentTuple.getKeyNode());
+            if (currentValue instanceof MappingNode && freshValue instanceof MappingNode
+                    && ((MappingNode) currentValue).getFlowStyle() == ((MappingNode) freshValue).getFlowStyle()) {
+                reconcileMapping((MappingNode) currentValue, (MappingNode) freshValue, prefix + key + ".");
+                tuples.add(currentTuple);
+            } else if (Nodes.equal(currentValue, freshValue)) {
+                Nodes.copyAllComments(freshValue, currentValue);
+                tuples.add(currentTuple);
+            } else {
+                changed.add(prefix + key);
+                context.invalidateValue(currentValue);
+                tuples.add(freshTuple);
+            }
+        }
+
+        for (String removed : currentTuples.keySet()) {
+            changed.add(prefix + removed);
+        }
+
+        current.setValue(tuples);
+        context.invalidate(current);
+    }
+}
@@ -0,0 +1,117 @@
+package net.skinsrestorer.axiom;
+
+import java.math.BigInteger;
+
+/**
+ * Single pass classifier that decides whether a String set by the user is a number or a boolean.
+ * Accepted numbers are {@code [+-]?\d+}, {@code [+-]?\d+\.\d+} and {@code [+-]?\d+\.\d+[eE][+-]?\d+},
+ * accepted booleans are {@code true} and {@code false}, all of them after trimming.
+ * Strings that are neither are returned as is without allocating anything.
+ */
+final class ScalarClassifier {
+    /**
+     * Up to this many digits always fit into a long.
+     */
+    private static final int SAFE_LONG_DIGITS = 18;
+
+    private ScalarClassifier() {
+    }
+
+    /**
+     * @return an Integer, Long, BigInteger, Double or Boolean if the value looks like one, otherwise the value itself
+     */
+    static Object classify(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        if (start == end) {
+            return value;
+        }
+
+        char first = value.charAt(start);
+        if (first == 't') {
+            return value.regionMatches(start, "true", 0, 4) && end - start == 4 ? Boolean.TRUE : value;
+        } else if (first == 'f') {
+            return value.regionMatches(start, "false", 0, 5) && end - start == 5 ? Boolean.FALSE : value;
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (first == '+' || first == '-') {
+            negative = first == '-';
+            i++;
+        }
+
+        int digitsStart = i;
+        long result = 0;
+        while (i < end && isDigit(value.charAt(i))) {
+            if (i - digitsStart < SAFE_LONG_DIGITS) {
+                result = result * 10 + (value.charAt(i) - '0');
+            }
+            i++;
+        }
+
+        int digits = i - digitsStart;
+        if (digits == 0) {
+            return value;
+        } else if (i == end) {
+            return toInteger(value, start, end, negative ? -result : result, digits);
+        } else if (value.charAt(i) != '.') {
+            return value;
+        }
+
+        i = skipDigits(value, i + 1, end);
+        if (i < 0) {
+            return value;
+        } else if (i == end) {
+            return Double.parseDouble(value);
+        }
+
+        char exponent = value.charAt(i);
+        if (exponent != 'e' && exponent != 'E') {
+            return value;
+        }
+
+        i++;
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            i++;
+        }
+
+        return skipDigits(value, i, end) == end ? Double.parseDouble(value) : value;
+    }
+
+    private static Object toInteger(String value, int start, int end, long result, int digits) {
+        if (digits <= SAFE_LONG_DIGITS) {
+            if (result >= Integer.MIN_VALUE && result <= Integer.MAX_VALUE) {
+                return (int) result;
+            }
+
+            return result;
+        }
+
+        BigInteger bigInteger = new BigInteger(value.substring(start, end));
+        return bigInteger.bitLength() < Long.SIZE ? (Object) bigInteger.longValue() : bigInteger;
+    }
+
+    /**
+     * @return the index after at least one digit or -1 if there is no digit at the start index
+     */
+    private static int skipDigits(String value, int i, int end) {
+        int start = i;
+        while (i < end && isDigit(value.charAt(i))) {
+            i++;
+        }
+
+        return i == start ? -1 : i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
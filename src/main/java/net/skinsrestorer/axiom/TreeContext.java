@@ -0,0 +1,240 @@
+package net.skinsrestorer.axiom;
+
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * State shared by a configuration and every section derived from it.
+ * Caches are keyed by node identity and hold their nodes weakly, so replaced subtrees are dropped automatically,
+ * even when a reader of an old snapshot fills them after it was replaced.
+ * In concurrent mode the caches are also cleared whenever a new snapshot is published.
+ * <p>
+ * Reads fill the caches in every mode, so the caches are thread-safe:
+ * any number of threads may read a configuration that isn't changed at the same time,
+ * but outside of concurrent mode a write must not run while another thread reads or writes.
+ */
+final class TreeContext {
+    private final WeakIdentityMap<MappingNode, KeyIndex> keyIndexes = new WeakIdentityMap<>();
+    private final WeakIdentityMap<Node, Object> values = new WeakIdentityMap<>();
+    private boolean concurrent;
+    private volatile long modCount;
+    @Nullable
+    private volatile Runnable modificationListener;
+    @Nullable
+    private AxiomMetricsListener metrics;
+    @Nullable
+    private Set<Node> owned;
+    private final Map<MappingNode, WeakReference<MappingNode>> forwards = weakMap();
+
+    /**
+     * Even {@link WeakHashMap#get(Object)} changes the map when it drops collected keys, so every access is synchronized.
+     */
+    private static <K, V> Map<K, V> weakMap() {
+        return Collections.synchronizedMap(new WeakHashMap<>());
+    }
+
+    void makeConcurrent() {
+        concurrent = true;
+    }
+
+    boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * Counts the changes made through the configuration and its sections, changes made directly to nodes are not seen.
+     */
+    long getModCount() {
+        return modCount;
+    }
+
+    void modified() {
+        modCount++;
+        Runnable listener = modificationListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    void setModificationListener(@Nullable Runnable listener) {
+        modificationListener = listener;
+    }
+
+    @Nullable
+    AxiomMetricsListener getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(@Nullable AxiomMetricsListener metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Published snapshots must never be mutated, so writes through a section of a concurrent tree are rejected.
+     */
+    void checkWritable() {
+        if (concurrent) {
+            throw new IllegalStateException("Sections of a concurrent configuration are read-only, use AxiomConfiguration#update instead");
+        }
+    }
+
+    //
+    // Copy-on-write
+    //
+
+    /**
+     * Marks every node of the tree as shared with another tree, for example a copy or a checkpoint.
+     * From now on a mapping is copied before it is changed for the first time, see {@link AxiomConfigurationSection#writableRoot()}.
+     */
+    void share() {
+        owned = Collections.newSetFromMap(weakMap());
+    }
+
+    /**
+     * Called when the tree was replaced by one that no other tree knows.
+     */
+    void unshare() {
+        owned = null;
+        forwards.clear();
+    }
+
+    /**
+     * Keeps sharing after the tree was replaced by one that was built on a copy-on-write view,
+     * the nodes the view copied belong to this tree from now on.
+     */
+    void shareFrom(TreeContext working) {
+        owned = working.owned != null ? working.owned : Collections.newSetFromMap(weakMap());
+        forwards.clear();
+    }
+
+    boolean isShared() {
+        return owned != null;
+    }
+
+    boolean owns(Node node) {
+        return owned == null || owned.contains(node);
+    }
+
+    /**
+     * Copies a shared mapping without its children, which stay shared until they are changed themselves.
+     * Sections that still point at the shared mapping are forwarded to the copy.
+     */
+    MappingNode own(MappingNode node) {
+        List<NodeTuple> tuples = node.getValue();
+        MappingNode copy = new MappingNode(node.getTag(), true, new ArrayList<>(tuples), node.getStartMark(), node.getEndMark(), node.getFlowStyle());
+        copy.setMerged(node.isMerged());
+        Nodes.copyMetadata(node, copy);
+        if (owned != null) {
+            owned.add(copy);
+            forwards.put(node, new WeakReference<>(copy));
+        }
+        return copy;
+    }
+
+    /**
+     * Marks a node that was copied for this tree as owned.
+     */
+    <T extends Node> T adopt(T node) {
+        if (owned != null) {
+            owned.add(node);
+        }
+        return node;
+    }
+
+    /**
+     * @return the latest copy of a mapping that was copied on write, or the mapping itself
+     */
+    MappingNode forward(MappingNode node) {
+        WeakReference<MappingNode> reference;
+        MappingNode copy;
+        while ((reference = forwards.get(node)) != null && (copy = reference.get()) != null) {
+            node = copy;
+        }
+        return node;
+    }
+
+    /**
+     * @return where shared mappings were copied to so far, see {@link #restoreForwards(Map)}
+     */
+    Map<MappingNode, WeakReference<MappingNode>> snapshotForwards() {
+        synchronized (forwards) {
+            return new WeakHashMap<>(forwards);
+        }
+    }
+
+    /**
+     * Forgets the copies made after a snapshot, sections that point at shared mappings see the copies they saw back then again.
+     */
+    void restoreForwards(Map<MappingNode, WeakReference<MappingNode>> snapshot) {
+        synchronized (forwards) {
+            forwards.clear();
+            forwards.putAll(snapshot);
+        }
+    }
+
+    int indexOf(MappingNode node, String key) {
+        List<NodeTuple> tuples = node.getValue();
+        if (tuples.size() < KeyIndex.THRESHOLD) {
+            return KeyIndex.scan(tuples, key);
+        }
+
+        KeyIndex index = keyIndexes.get(node);
+        if (index == null || !index.isValidFor(tuples)) {
+            index = new KeyIndex(tuples);
+            keyIndexes.put(node, index);
+        }
+
+        int position = index.get(key);
+        if (position >= 0 && !key.equals(KeyIndex.keyOf(tuples.get(position)))) {
+            // A tuple was swapped behind our back, rebuild once
+            index = new KeyIndex(tuples);
+            keyIndexes.put(node, index);
+            position = index.get(key);
+        }
+
+        return position;
+    }
+
+    void appended(MappingNode node, NodeTuple tuple) {
+        KeyIndex index = keyIndexes.get(node);
+        if (index == null) {
+            return;
+        }
+
+        if (!index.appended(node.getValue(), KeyIndex.keyOf(tuple))) {
+            keyIndexes.remove(node);
+        }
+    }
+
+    void invalidate(MappingNode node) {
+        keyIndexes.remove(node);
+    }
+
+    /**
+     * @return the converted value cached for the node or null if there is none
+     */
+    @Nullable
+    Object getValue(Node node) {
+        return values.get(node);
+    }
+
+    void putValue(Node node, Object value) {
+        values.put(node, value);
+    }
+
+    void invalidateValue(@Nullable Node node) {
+        if (node != null) {
+            values.remove(node);
+        }
+    }
+
+    void clear() {
+        keyIndexes.clear();
+        values.clear();
+    }
+}
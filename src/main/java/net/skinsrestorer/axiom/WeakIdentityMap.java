@@ -0,0 +1,99 @@
+package net.skinsrestorer.axiom;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe map that compares keys by identity and holds them weakly, entries of collected keys are dropped on the next access.
+ * Readers never block each other, unlike a synchronized {@link java.util.WeakHashMap}.
+ */
+final class WeakIdentityMap<K, V> {
+    private final ConcurrentHashMap<Object, V> map = new ConcurrentHashMap<>();
+    private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+
+    @Nullable
+    V get(K key) {
+        expunge();
+        return map.get(new Lookup(key));
+    }
+
+    void put(K key, V value) {
+        expunge();
+        map.put(new WeakKey<>(key, queue), value);
+    }
+
+    void remove(K key) {
+        map.remove(new Lookup(key));
+    }
+
+    void clear() {
+        map.clear();
+        while (queue.poll() != null) {
+            // Already gone from the map
+        }
+    }
+
+    private void expunge() {
+        Reference<? extends K> reference;
+        while ((reference = queue.poll()) != null) {
+            map.remove(reference);
+        }
+    }
+
+    /**
+     * The key stored in the map, equal to other keys and lookups for the same object while it is alive.
+     */
+    private static final class WeakKey<K> extends WeakReference<K> {
+        private final int hash;
+
+        private WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+
+            Object key = get();
+            if (key == null) {
+                return false;
+            } else if (other instanceof WeakKey) {
+                return key == ((WeakKey<?>) other).get();
+            }
+            return other instanceof Lookup && key == ((Lookup) other).key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A short-lived strong key for lookups, so a get allocates no reference.
+     */
+    private static final class Lookup {
+        private final Object key;
+
+        private Lookup(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof WeakKey && ((WeakKey<?>) other).get() == key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(key);
+        }
+    }
+}
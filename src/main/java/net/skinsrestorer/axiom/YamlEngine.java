@@ -0,0 +1,131 @@
+package net.skinsrestorer.axiom;
+
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.representer.Representer;
+import org.yaml.snakeyaml.serializer.NumberAnchorGenerator;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * The SnakeYAML setup used by configurations, safe to share between any number of configurations and threads.
+ * Composing and parsing create their own state on every call and use one shared {@link Yaml}.
+ * Representing and serializing keep state in the representer and anchor generator, so those calls borrow an instance from a pool.
+ */
+public final class YamlEngine {
+    private static final Map<Long, YamlEngine> ENGINES = new ConcurrentHashMap<>();
+
+    @Nullable
+    private final Supplier<Instance> factory;
+    private final Yaml shared;
+    private final Queue<Instance> pool = new ConcurrentLinkedQueue<>();
+
+    private YamlEngine(@Nullable Supplier<Instance> factory, Yaml shared) {
+        this.factory = factory;
+        this.shared = shared;
+    }
+
+    /**
+     * @return the engine for the given indentation, engines are created once and then reused
+     */
+    public static YamlEngine get(int indent, int indicatorIndent) {
+        long key = (long) indent << 32 | indicatorIndent & 0xFFFFFFFFL;
+        return ENGINES.computeIfAbsent(key, k -> {
+            Supplier<Instance> factory = () -> new Instance(indent, indicatorIndent);
+            return new YamlEngine(factory, factory.get().yaml);
+        });
+    }
+
+    /**
+     * Wraps a custom {@link Yaml}, representing and serializing then synchronize on that instance.
+     */
+    public static YamlEngine of(Yaml yaml) {
+        return new YamlEngine(null, yaml);
+    }
+
+    /**
+     * @return the instance used for composing and parsing, it must not be used to represent or serialize without synchronizing on it
+     */
+    Yaml getYaml() {
+        return shared;
+    }
+
+    public Node represent(Object data) {
+        if (factory == null) {
+            synchronized (shared) {
+                return shared.represent(data);
+            }
+        }
+
+        Instance instance = borrow();
+        try {
+            return instance.yaml.represent(data);
+        } finally {
+            pool.offer(instance);
+        }
+    }
+
+    public Node compose(Reader reader) {
+        return shared.compose(reader);
+    }
+
+    public Iterable<Event> parse(Reader reader) {
+        return shared.parse(reader);
+    }
+
+    public void serialize(Node node, Writer writer) {
+        if (factory == null) {
+            synchronized (shared) {
+                shared.serialize(node, writer);
+            }
+            return;
+        }
+
+        Instance instance = borrow();
+        try {
+            // Every document numbers its anchors from the start, no matter which instance serializes it
+            instance.dumperOptions.setAnchorGenerator(new NumberAnchorGenerator(0));
+            instance.yaml.serialize(node, writer);
+        } finally {
+            pool.offer(instance);
+        }
+    }
+
+    private Instance borrow() {
+        Instance instance = pool.poll();
+        return instance != null ? instance : factory.get();
+    }
+
+    private static class Instance {
+        private final DumperOptions dumperOptions = new DumperOptions();
+        private final Yaml yaml;
+
+        private Instance(int indent, int indicatorIdent) {
+            LoaderOptions loaderOptions = new LoaderOptions();
+            loaderOptions.setProcessComments(true);
+            dumperOptions.setProcessComments(true);
+            dumperOptions.setIndent(indent);
+            dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+            dumperOptions.setIndicatorIndent(indicatorIdent);
+            dumperOptions.setIndentWithIndicator(true);
+            dumperOptions.setDefaultScalarStyle(DumperOptions.ScalarStyle.PLAIN);
+            dumperOptions.setAllowUnicode(true);
+            dumperOptions.setSplitLines(false);
+            Constructor constructor = new Constructor(loaderOptions);
+            Representer representer = new Representer(dumperOptions);
+
+            yaml = new Yaml(constructor, representer, dumperOptions, loaderOptions);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncTest {
+    @Test
+    @DisplayName("Test loading and saving on an executor")
+    public void asyncTest() throws Exception {
+        Path file = Files.createTempDirectory("axiom").resolve("config.yml");
+        Files.write(file, "a: 1\n".getBytes(StandardCharsets.UTF_8));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AxiomConfiguration config = new AxiomConfiguration();
+            config.loadAsync(file, executor).get(30, TimeUnit.SECONDS);
+            assertEquals(1, config.getInt("a"));
+
+            config.set("a", 2);
+            CompletableFuture<Void> saved = config.saveAsync(file, executor);
+            config.set("a", 3);
+            saved.get(30, TimeUnit.SECONDS);
+
+            assertEquals("a: 2\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            assertTrue(config.isDirty());
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> config.loadAsync(file.resolveSibling("missing.yml"), executor).get(30, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof IOException);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test that a burst of changes is written once")
+    public void writeBehindTest() throws Exception {
+        Path file = Files.createTempDirectory("axiom").resolve("config.yml");
+        AtomicInteger saves = new AtomicInteger();
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.enableConcurrentMode();
+        config.setMetricsListener(new AxiomMetricsListener() {
+            @Override
+            public void saved(long durationNanos, long characters) {
+                saves.incrementAndGet();
+            }
+        });
+
+        try (AxiomWriteBehind writeBehind = config.writeBehind(file, 500, TimeUnit.MILLISECONDS, Runnable::run)) {
+            assertThrows(IllegalStateException.class, () -> config.writeBehind(file, 1, TimeUnit.SECONDS, Runnable::run));
+            for (int i = 0; i < 50; i++) {
+                config.set("value", i);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (saves.get() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, saves.get());
+            assertEquals("value: 49\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+            config.set("other", true);
+        }
+
+        assertEquals("value: 49\nother: true\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        assertFalse(config.isDirty());
+    }
+}
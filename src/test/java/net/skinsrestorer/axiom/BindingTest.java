@@ -0,0 +1,93 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BindingTest {
+    @Test
+    @DisplayName("Test binding a section to an object")
+    public void bindTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("name: test\ncount: 5\nratio: 0.5\nenabled: true\nmode: FAST\nworlds: [a, b]\nids: [1, 2]\n"
+                + "database:\n  host: localhost\n  port: 3306\nunknown: 1\n");
+
+        Settings settings = config.bind(Settings.class);
+        assertEquals("test", settings.name);
+        assertEquals(5, ((Settings) settings).count);
+        assertEquals(0.5, settings.ratio);
+        assertTrue(settings.enabled);
+        assertEquals(Mode.FAST, settings.mode);
+        assertEquals(Arrays.asList("a", "b"), settings.worlds);
+        assertArrayEquals(new int[]{1, 2}, settings.ids);
+        assertEquals("localhost", settings.database.host);
+        assertEquals(3306, settings.database.port);
+        assertEquals(7L, settings.timeout);
+    }
+
+    @Test
+    @DisplayName("Test binding to an existing object after a reload")
+    public void bindToTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("name: test\ncount: 5\n");
+        Settings settings = config.bind(Settings.class);
+
+        config.load("count: 6\ntimeout: 9\n");
+        assertSame(settings, config.bindTo(settings));
+        assertEquals("test", settings.name);
+        assertEquals(6, settings.count);
+        assertEquals(9L, settings.timeout);
+
+        assertThrows(NumberFormatException.class, () -> {
+            config.set("count", "x");
+            config.bind(Settings.class);
+        });
+        assertThrows(IllegalArgumentException.class, () -> config.bind(Unsupported.class));
+    }
+
+    @Test
+    @DisplayName("Test that a field hides the field of the same name in its superclass")
+    public void shadowedFieldTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("name: test\ncount: 5\n");
+
+        ExtendedSettings settings = config.bind(ExtendedSettings.class);
+        assertEquals("test", settings.name);
+        assertNull(((Settings) settings).name);
+        assertEquals(5, ((Settings) settings).count);
+    }
+
+    public enum Mode {
+        FAST, SLOW
+    }
+
+    public static class Settings {
+        private String name;
+        private int count;
+        private double ratio;
+        private boolean enabled;
+        private Mode mode;
+        private List<String> worlds;
+        private int[] ids;
+        private Database database;
+        private long timeout = 7;
+    }
+
+    public static class ExtendedSettings extends Settings {
+        private String name;
+    }
+
+    public static class Database {
+        private String host;
+        private int port;
+    }
+
+    public static class Unsupported {
+        private Object value;
+    }
+}
@@ -0,0 +1,46 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkLoadTest {
+    @Test
+    @DisplayName("Test loading a directory in parallel")
+    public void bulkLoadTest() throws IOException {
+        Path directory = Files.createTempDirectory("axiom");
+        for (int i = 0; i < 200; i++) {
+            StringBuilder data = new StringBuilder("id: " + i + "\nname: \"\u00e4" + i + "\"\n");
+            for (int j = 0; j < i; j++) {
+                data.append("key").append(j).append(": value\n");
+            }
+            Files.write(directory.resolve("player" + i + ".yml"), data.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(directory.resolve("broken.yml"), "a: [\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("malformed.yml"), new byte[]{'a', ':', ' ', (byte) 0xc3, '(', '\n'});
+        Files.write(directory.resolve("ignored.txt"), "a: 1\n".getBytes(StandardCharsets.UTF_8));
+
+        AxiomBulkLoader.Result result = new AxiomBulkLoader(YamlEngine.get(2, 2), 4).load(directory, "*.yml");
+
+        assertEquals(200, result.getConfigurations().size());
+        for (int i = 0; i < 200; i++) {
+            AxiomConfiguration config = result.getConfigurations().get(directory.resolve("player" + i + ".yml"));
+            assertEquals(i, config.getInt("id"));
+            assertEquals("\u00e4" + i, config.getString("name"));
+            assertEquals(i + 2, config.getKeys().size());
+            assertFalse(config.isDirty());
+        }
+
+        assertEquals(2, result.getFailures().size());
+        assertTrue(result.getFailures().get(directory.resolve("broken.yml")) instanceof IOException);
+        assertTrue(result.getFailures().get(directory.resolve("malformed.yml")) instanceof CharacterCodingException);
+        assertThrows(IOException.class, () -> new AxiomConfiguration().load(directory.resolve("malformed.yml")));
+    }
+}
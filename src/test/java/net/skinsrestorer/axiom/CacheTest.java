@@ -0,0 +1,102 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheTest {
+    private static final String DATA = "# Header\n\n"
+            + "a: # section\n  b: 'quoted' # inline\n  c: |\n    literal\n    text\n"
+            + "base: &base\n  x: 1\nfirst: *base\nsecond: *base\n"
+            + "list: [1, 2, 3]\nblock:\n  - one\n  - two\ntagged: !!str 5\nunicode: \u00e4\u00f6\u00fc\n"
+            + "# Footer\n";
+
+    @Test
+    @DisplayName("Test that a cached load is the same as a fresh one")
+    public void cacheTest() throws IOException {
+        Path directory = Files.createTempDirectory("axiom");
+        Path file = directory.resolve("config.yml");
+        Path cache = directory.resolve("config.yml.cache");
+        Files.write(file, DATA.getBytes(StandardCharsets.UTF_8));
+
+        AxiomConfiguration fresh = new AxiomConfiguration();
+        fresh.load(file);
+
+        AxiomConfiguration first = new AxiomConfiguration();
+        first.load(file, cache);
+        assertTrue(Files.exists(cache));
+
+        MappingNode cached = NodeCache.read(cache, Hashing.hash(DATA.getBytes(StandardCharsets.UTF_8)));
+        assertNotNull(cached);
+        assertTrue(Nodes.equal(fresh.rootNode, cached));
+
+        AxiomConfiguration second = new AxiomConfiguration();
+        second.load(file, cache);
+        assertEquals(fresh.saveToString(), second.saveToString());
+        assertEquals(1, second.getInt("first.x"));
+
+        List<NodeTuple> tuples = second.rootNode.getValue();
+        assertSame(tuples.get(2).getValueNode(), tuples.get(3).getValueNode());
+        assertEquals(fresh.rootNode.getValue().get(1).getValueNode().getStartMark().getLine(),
+                tuples.get(1).getValueNode().getStartMark().getLine());
+    }
+
+    @Test
+    @DisplayName("Test that empty files load through a cache like without one")
+    public void emptyFileTest() throws IOException {
+        Path directory = Files.createTempDirectory("axiom");
+        Path file = directory.resolve("config.yml");
+        Path cache = directory.resolve("config.yml.cache");
+
+        for (String content : new String[]{"", "# Only a comment\n"}) {
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            AxiomConfiguration fresh = new AxiomConfiguration();
+            fresh.load(file);
+
+            AxiomConfiguration cached = new AxiomConfiguration();
+            cached.load(file, cache);
+            if (fresh.rootNode == null) {
+                assertNull(cached.rootNode);
+            } else {
+                assertTrue(Nodes.equal(fresh.rootNode, cached.rootNode));
+            }
+            assertFalse(cached.isDirty());
+
+            // A second load goes through the cache if one was written
+            cached.load(file, cache);
+            assertEquals(fresh.rootNode == null, cached.rootNode == null);
+        }
+    }
+
+    @Test
+    @DisplayName("Test that a stale or broken cache is ignored")
+    public void staleCacheTest() throws IOException {
+        Path directory = Files.createTempDirectory("axiom");
+        Path file = directory.resolve("config.yml");
+        Path cache = directory.resolve("config.yml.cache");
+        Files.write(file, "a: 1\n".getBytes(StandardCharsets.UTF_8));
+
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(file, cache);
+
+        Files.write(file, "a: 2\n".getBytes(StandardCharsets.UTF_8));
+        config.load(file, cache);
+        assertEquals(2, config.getInt("a"));
+
+        byte[] bytes = Files.readAllBytes(cache);
+        Files.write(cache, Arrays.copyOf(bytes, bytes.length - 3));
+        config.load(file, cache);
+        assertEquals(2, config.getInt("a"));
+        assertEquals(bytes.length, Files.size(cache));
+    }
+}
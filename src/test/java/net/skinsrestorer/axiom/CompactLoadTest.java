@@ -0,0 +1,242 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactLoadTest {
+    private static final int FILES = 10;
+    private static final int SECTIONS = 200;
+    private static final int KEYS = 50;
+
+    private static String generate() {
+        StringBuilder builder = new StringBuilder();
+        for (int section = 0; section < SECTIONS; section++) {
+            builder.append("# Section ").append(section).append('\n');
+            builder.append("section").append(section).append(":\n");
+            for (int key = 0; key < KEYS; key++) {
+                builder.append("  key").append(key).append(": ").append(section * KEYS + key);
+                if (key % 10 == 0) {
+                    builder.append(" # Comment");
+                }
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    @Test
+    @DisplayName("Test that compact loading keeps the content")
+    public void contentTest() throws IOException {
+        String document = "# Header\na: &anchor\n  b: 1 # Inline\n  c: [x, y]\nd: *anchor\ne: !custom value\n# End\n";
+        AxiomConfiguration normal = new AxiomConfiguration();
+        normal.load(document);
+        AxiomConfiguration compact = new AxiomConfiguration();
+        compact.setCompactLoading(true);
+        compact.load(document);
+
+        assertEquals(normal.saveToString(), compact.saveToString());
+        assertTrue(Nodes.equal(normal.rootNode, compact.rootNode));
+        assertNull(compact.getNode("a.b").get().getStartMark());
+
+        compact.set("a.b", 2);
+        compact.reload(new StringReader(document));
+        assertEquals(normal.saveToString(), compact.saveToString());
+    }
+
+    @Test
+    @DisplayName("Test the retained size of compactly loaded trees")
+    public void memoryTest() throws IOException {
+        String document = generate();
+        int keys = FILES * SECTIONS * (KEYS + 1);
+
+        double normalPerKey = (double) retained(document, false) / keys;
+        double compactPerKey = (double) retained(document, true) / keys;
+        assertTrue(compactPerKey < 300, "Compact trees retain " + compactPerKey + " bytes per key");
+        assertTrue(compactPerKey < normalPerKey * 0.6, "Compact trees retain " + compactPerKey + " bytes per key, normal ones " + normalPerKey);
+    }
+
+    /**
+     * Estimates the bytes retained by several configurations loaded from the same document,
+     * objects that are shared between them, like interned keys, are counted once.
+     */
+    private static long retained(String document, boolean compactLoading) throws IOException {
+        RetainedSize size = new RetainedSize();
+        for (int i = 0; i < FILES; i++) {
+            AxiomConfiguration configuration = new AxiomConfiguration();
+            configuration.setCompactLoading(compactLoading);
+            configuration.load(document);
+            size.add(configuration.rootNode);
+        }
+        return size.bytes;
+    }
+
+    @Test
+    @DisplayName("Test that compactly loaded trees share keys, tags and empty comment lists")
+    public void sharingTest() throws IOException {
+        String document = generate();
+        AxiomConfiguration first = new AxiomConfiguration();
+        first.setCompactLoading(true);
+        first.load(document);
+        AxiomConfiguration second = new AxiomConfiguration();
+        second.setCompactLoading(true);
+        second.load(document);
+
+        NodeTuple firstTuple = first.getSection("section1").rootNode.getValue().get(1);
+        NodeTuple secondTuple = second.getSection("section2").rootNode.getValue().get(1);
+        ScalarNode firstKey = (ScalarNode) firstTuple.getKeyNode();
+        ScalarNode secondKey = (ScalarNode) secondTuple.getKeyNode();
+        assertEquals("key1", firstKey.getValue());
+        assertSame(firstKey.getValue(), secondKey.getValue());
+        assertSame(firstKey.getTag(), secondKey.getTag());
+        assertSame(firstTuple.getValueNode().getTag(), secondTuple.getValueNode().getTag());
+        assertSame(firstKey.getInLineComments(), secondTuple.getValueNode().getInLineComments());
+        assertTrue(firstKey.getInLineComments().isEmpty());
+
+        assertNoMarks(first.rootNode);
+        assertEquals(SECTIONS, first.getKeys().size());
+    }
+
+    @Test
+    @DisplayName("Test that compact loads keep the marks in the cache")
+    public void cacheTest() throws IOException {
+        Path directory = Files.createTempDirectory("axiom");
+        Path file = directory.resolve("config.yml");
+        Path cache = directory.resolve("config.cache");
+        Files.write(file, "a:\n  b: 1\n".getBytes(StandardCharsets.UTF_8));
+
+        AxiomConfiguration compact = new AxiomConfiguration();
+        compact.setCompactLoading(true);
+        compact.load(file, cache);
+        assertTrue(Files.exists(cache));
+        assertNoMarks(compact.rootNode);
+
+        AxiomConfiguration normal = new AxiomConfiguration();
+        normal.load(file, cache);
+        Mark mark = normal.getNode("a.b").get().getStartMark();
+        assertNotNull(mark);
+        assertEquals(1, mark.getLine());
+
+        compact.load(file, cache);
+        assertNoMarks(compact.rootNode);
+    }
+
+    private static void assertNoMarks(Node node) {
+        assertNull(node.getStartMark());
+        assertNull(node.getEndMark());
+        if (node instanceof MappingNode) {
+            for (NodeTuple tuple : ((MappingNode) node).getValue()) {
+                assertNoMarks(tuple.getKeyNode());
+                assertNoMarks(tuple.getValueNode());
+            }
+        } else if (node instanceof SequenceNode) {
+            for (Node value : ((SequenceNode) node).getValue()) {
+                assertNoMarks(value);
+            }
+        }
+    }
+
+    /**
+     * A deterministic estimate of the heap used by an object graph, independent of the collector the tests run on.
+     * It assumes a 64-bit JVM with compressed references and compact strings.
+     * Objects of the JDK are sized by their content instead of walked, enums and classes are shared and not counted.
+     */
+    private static class RetainedSize {
+        private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Deque<Object> pending = new ArrayDeque<>();
+        private long bytes;
+
+        private void add(Object root) {
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Object object = pending.pop();
+                if (object instanceof Enum || object instanceof Class || !seen.add(object)) {
+                    continue;
+                }
+                bytes += shallow(object);
+            }
+        }
+
+        private long shallow(Object object) {
+            Class<?> type = object.getClass();
+            if (type.isArray()) {
+                int length = Array.getLength(object);
+                Class<?> component = type.getComponentType();
+                if (!component.isPrimitive()) {
+                    for (int i = 0; i < length; i++) {
+                        push(Array.get(object, i));
+                    }
+                }
+                return align(16 + (long) length * size(component));
+            } else if (object instanceof String) {
+                return align(24) + align(16 + ((String) object).length());
+            } else if (object instanceof List && type.getName().startsWith("java.")) {
+                List<?> list = (List<?>) object;
+                list.forEach(this::push);
+                return list.isEmpty() ? align(16) : align(24) + align(16 + 4L * list.size());
+            } else if (type.getName().startsWith("java.")) {
+                return align(16);
+            }
+
+            long size = 12;
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+
+                    size += size(field.getType());
+                    if (!field.getType().isPrimitive()) {
+                        try {
+                            field.setAccessible(true);
+                            push(field.get(object));
+                        } catch (IllegalAccessException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }
+            }
+            return align(size);
+        }
+
+        private void push(Object object) {
+            if (object != null) {
+                pending.push(object);
+            }
+        }
+
+        private static int size(Class<?> type) {
+            if (type == long.class || type == double.class) {
+                return 8;
+            } else if (type == int.class || type == float.class) {
+                return 4;
+            } else if (type == short.class || type == char.class) {
+                return 2;
+            } else if (type == byte.class || type == boolean.class) {
+                return 1;
+            }
+            return 4;
+        }
+
+        private static long align(long size) {
+            return (size + 7) & ~7L;
+        }
+    }
+}
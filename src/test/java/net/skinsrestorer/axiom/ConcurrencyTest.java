@@ -0,0 +1,165 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.nodes.MappingNode;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConcurrencyTest {
+    @Test
+    @DisplayName("Test that readers only ever see complete batches")
+    public void snapshotTest() throws Exception {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.enableConcurrentMode();
+        config.load("x:\n  a: 0\n  b: 0\n");
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        AxiomConfigurationSection section = config.getSection("x");
+                        assertEquals(section.getInt("a"), section.getInt("b"));
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (int i = 1; i <= 500; i++) {
+            int value = i;
+            config.update(section -> {
+                section.set("x.a", value);
+                section.set("x.b", value);
+                section.set("y" + value, value);
+            });
+        }
+
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(500, config.getInt("x.a"));
+        assertEquals(501, config.getKeys().size());
+    }
+
+    @Test
+    @DisplayName("Test that threads can read a configuration that isn't in concurrent mode")
+    public void sharedReadTest() throws Exception {
+        StringBuilder data = new StringBuilder("x:\n");
+        for (int i = 0; i < 64; i++) {
+            data.append("  k").append(i).append(": ").append(i).append('\n');
+            data.append("  l").append(i).append(": [").append(i).append("]\n");
+        }
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(data.toString());
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int round = 0; round < 200; round++) {
+                        AxiomConfigurationSection section = config.getSection("x");
+                        for (int key = 0; key < 64; key++) {
+                            assertEquals(key, section.getInt("k" + key));
+                            assertEquals(String.valueOf(key), section.getStringList("l" + key).get(0));
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    @Test
+    @DisplayName("Test that readers of an old snapshot don't keep it alive")
+    public void retiredSnapshotTest() throws Exception {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.enableConcurrentMode();
+        config.load("x:\n  a: 0\n  b: 1\n  c: 2\n  d: 3\n  e: 4\n  f: 5\n  g: 6\n  h: 7\n  i: [8]\n");
+
+        WeakReference<MappingNode> old = readAfterUpdate(config);
+        for (int i = 0; i < 20 && old.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(old.get());
+        assertEquals(1, config.getInt("x.a"));
+    }
+
+    /**
+     * Reads a section of the current snapshot after a newer one was published, which fills the caches with its nodes.
+     */
+    private static WeakReference<MappingNode> readAfterUpdate(AxiomConfiguration config) {
+        AxiomConfigurationSection section = config.getSection("x");
+        MappingNode node = section.rootNode;
+        config.set("x.a", 1);
+        assertEquals(0, section.getInt("a"));
+        assertEquals(Arrays.asList("8"), section.getStringList("i"));
+        return new WeakReference<>(node);
+    }
+
+    @Test
+    @DisplayName("Test that a failed batch publishes nothing")
+    public void failedBatchTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.enableConcurrentMode();
+        config.load("a: 1\n");
+
+        assertThrows(IllegalArgumentException.class, () -> config.update(section -> {
+            section.set("a", 2);
+            section.set("b", 3);
+            throw new IllegalArgumentException();
+        }));
+
+        assertEquals(1, config.getInt("a"));
+        assertNull(config.getInt("b"));
+    }
+
+    @Test
+    @DisplayName("Test that sections of a concurrent configuration are read-only")
+    public void readOnlySectionTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.enableConcurrentMode();
+        config.load("a:\n  b: 1\n");
+
+        AxiomConfigurationSection section = config.getSection("a");
+        assertThrows(IllegalStateException.class, () -> section.set("b", 2));
+
+        config.set("a.b", 2);
+        assertEquals(1, section.getInt("b"));
+        assertEquals(2, config.getInt("a.b"));
+    }
+}
@@ -0,0 +1,46 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ConfigPathTest {
+    @Test
+    @DisplayName("Test if paths are split like String#split")
+    public void splitTest() {
+        for (String path : new String[]{"", "a", "a.b.c", "a.b.", "a..b", ".a", "...", "a.b.c.."}) {
+            String[] expected = path.split("\\.");
+            ConfigPath configPath = ConfigPath.of(path);
+
+            assertEquals(expected.length, configPath.length());
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], configPath.get(i));
+            }
+            assertEquals(path, configPath.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Test reading and writing with precompiled paths")
+    public void accessorTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a:\n  b:\n    c: true\n    d: 5\n");
+
+        ConfigPath c = ConfigPath.of("a.b.c");
+        ConfigPath d = ConfigPath.of("a.b.d");
+        ConfigPath missing = ConfigPath.of("a.x.y");
+
+        assertEquals(true, config.getBoolean(c));
+        assertEquals(5, config.getInt(d));
+        assertNull(config.getString(missing));
+        assertEquals(2, config.getSection(ConfigPath.of("a.b")).getKeys().size());
+
+        config.set(missing, "z");
+        assertEquals("z", config.getString(missing));
+        assertEquals("z", config.getString("a.x.y"));
+    }
+}
@@ -0,0 +1,175 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CopyTest {
+    private static final String DATA = "a:\n  b: 1\n  c:\n    d: 2\ne:\n  f: 3\n";
+
+    @Test
+    @DisplayName("Test that copies share unchanged sections")
+    public void copyTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(DATA);
+        AxiomConfigurationSection section = config.getSection("a");
+        AxiomConfigurationSection sameSection = config.getSection("a");
+
+        AxiomConfiguration copy = config.copy();
+        assertSame(config.rootNode, copy.rootNode);
+
+        copy.set("a.c.d", 5);
+        assertEquals(2, config.getInt("a.c.d"));
+        assertEquals(5, copy.getInt("a.c.d"));
+        assertSame(config.getNode("e").get(), copy.getNode("e").get());
+        assertNotSame(config.getNode("a").get(), copy.getNode("a").get());
+
+        // Sections taken before the copy change the tree they were taken from
+        section.set("b", 6);
+        assertEquals(6, config.getInt("a.b"));
+        assertEquals(6, sameSection.getInt("b"));
+        assertEquals(1, copy.getInt("a.b"));
+        sameSection.getSection("c").set("g", 7);
+        assertEquals(7, config.getInt("a.c.g"));
+        assertNull(copy.getString("a.c.g"));
+
+        assertEquals("a:\n  b: 6\n  c:\n    d: 2\n    g: 7\ne:\n  f: 3\n", config.saveToString());
+        assertEquals("a:\n  b: 1\n  c:\n    d: 5\ne:\n  f: 3\n", copy.saveToString());
+    }
+
+    @Test
+    @DisplayName("Test that merges, edits and reloads don't change copies")
+    public void copyWriteTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(DATA);
+        AxiomConfiguration copy = config.copy();
+
+        AxiomConfiguration defaults = new AxiomConfiguration();
+        defaults.load("# Comment\na:\n  h: 8\n");
+        config.merge(defaults);
+        config.edit().set("e.f", 4).remove("a.c").commit();
+        assertEquals("a:\n  b: 1\n  c:\n    d: 2\ne:\n  f: 3\n", copy.saveToString());
+
+        copy.reload(new StringReader("a:\n  b: 9\n"));
+        assertEquals("a:\n  b: 9\n", copy.saveToString());
+        assertEquals(1, config.getInt("a.b"));
+        assertEquals(8, config.getInt("a.h"));
+        assertEquals(4, config.getInt("e.f"));
+    }
+
+    @Test
+    @DisplayName("Test checkpoints and rollback")
+    public void rollbackTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(DATA);
+        AxiomConfigurationSection section = config.getSection("a");
+
+        AxiomConfiguration.Checkpoint checkpoint = config.checkpoint();
+        config.set("a.b", 2);
+        config.set("x", "y");
+        assertEquals(2, section.getInt("b"));
+
+        config.rollback(checkpoint);
+        assertEquals(DATA, config.saveToString());
+        assertEquals(1, section.getInt("b"));
+        assertTrue(config.isDirty());
+
+        // A checkpoint can be restored again
+        config.set("a.b", 3);
+        config.rollback(checkpoint);
+        assertEquals(DATA, config.saveToString());
+
+        assertThrows(IllegalArgumentException.class, () -> new AxiomConfiguration().rollback(checkpoint));
+    }
+
+    @Test
+    @DisplayName("Test that copies stay unchanged by writes after an update")
+    public void copyUpdateTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(DATA);
+        AxiomConfiguration copy = config.copy();
+
+        config.update(section -> section.set("x.y", 2));
+        config.set("a.b", 99);
+        assertEquals(99, config.getInt("a.b"));
+        assertEquals(1, copy.getInt("a.b"));
+        assertEquals(DATA, copy.saveToString());
+    }
+
+    @Test
+    @DisplayName("Test rollback after an update")
+    public void updateRollbackTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(DATA);
+
+        AxiomConfiguration.Checkpoint checkpoint = config.checkpoint();
+        config.update(section -> section.set("x.y", 2));
+        config.set("a.b", 99);
+
+        config.rollback(checkpoint);
+        assertEquals(1, config.getInt("a.b"));
+        assertEquals(DATA, config.saveToString());
+    }
+
+    @Test
+    @DisplayName("Test rollback to a later checkpoint with a section taken before both")
+    public void nestedRollbackTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a:\n  b: 1\n");
+        AxiomConfigurationSection section = config.getSection("a");
+
+        config.checkpoint();
+        section.set("b", 2);
+        AxiomConfiguration.Checkpoint second = config.checkpoint();
+        section.set("b", 3);
+        assertEquals(3, config.getInt("a.b"));
+
+        config.rollback(second);
+        assertEquals(2, config.getInt("a.b"));
+        assertEquals(2, section.getInt("b"));
+
+        section.set("b", 4);
+        assertEquals(4, config.getInt("a.b"));
+        assertEquals(4, section.getInt("b"));
+        config.rollback(second);
+        assertEquals(2, section.getInt("b"));
+    }
+
+    @Test
+    @DisplayName("Test rollback of a tree that is shared with a copy")
+    public void sharedRollbackTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a:\n  b: 1\n");
+        AxiomConfigurationSection section = config.getSection("a");
+        AxiomConfiguration copy = config.copy();
+
+        section.set("b", 2);
+        AxiomConfiguration.Checkpoint checkpoint = config.checkpoint();
+        section.set("b", 3);
+        config.rollback(checkpoint);
+        assertEquals(2, section.getInt("b"));
+
+        section.set("b", 4);
+        assertEquals(4, config.getInt("a.b"));
+        assertEquals(1, copy.getInt("a.b"));
+    }
+
+    @Test
+    @DisplayName("Test checkpoints in concurrent mode")
+    public void concurrentRollbackTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(DATA);
+        config.enableConcurrentMode();
+
+        AxiomConfiguration.Checkpoint checkpoint = config.checkpoint();
+        config.update(section -> section.getSection("a").set("b", 2));
+        assertEquals(2, config.getInt("a.b"));
+
+        config.rollback(checkpoint);
+        assertEquals(DATA, config.saveToString());
+    }
+}
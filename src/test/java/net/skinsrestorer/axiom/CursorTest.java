@@ -0,0 +1,81 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorTest {
+    private static final String DATA = "a:\n  b: 1\n  c:\n    d: x\n    e: [1, 2]\nf: true\ng: {}\nh:\n  i: y\n";
+
+    @Test
+    @DisplayName("Test walking every key depth-first")
+    public void cursorTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(DATA);
+
+        List<String> paths = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        AxiomCursor cursor = config.cursor();
+        while (cursor.next()) {
+            paths.add(cursor.getPath());
+            depths.add(cursor.getDepth());
+        }
+        assertFalse(cursor.next());
+        assertThrows(NoSuchElementException.class, cursor::getPath);
+
+        assertEquals(Arrays.asList("a", "a.b", "a.c", "a.c.d", "a.c.e", "f", "g", "h", "h.i"), paths);
+        assertEquals(Arrays.asList(0, 1, 1, 2, 2, 0, 0, 0, 1), depths);
+
+        assertEquals(Arrays.asList("c.d", "c.e"), config.getSection("a").deepEntries()
+                .map(Map.Entry::getKey)
+                .filter(path -> path.startsWith("c."))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Test skipping sections and stopping early")
+    public void skipTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(DATA);
+
+        List<String> paths = new ArrayList<>();
+        AxiomCursor cursor = config.cursor();
+        while (cursor.next()) {
+            paths.add(cursor.getKey());
+            if (cursor.isSection()) {
+                cursor.skipChildren();
+            }
+        }
+        assertEquals(config.getKeys(), paths);
+
+        List<String> visited = new ArrayList<>();
+        Optional<String> first = config.deepEntries()
+                .peek(entry -> visited.add(entry.getKey()))
+                .map(Map.Entry::getKey)
+                .filter(path -> path.endsWith(".d"))
+                .findFirst();
+        assertEquals("a.c.d", first.orElse(null));
+        assertEquals(Arrays.asList("a", "a.b", "a.c", "a.c.d"), visited);
+    }
+
+    @Test
+    @DisplayName("Test exporting a flat map")
+    public void flatMapTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(DATA);
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("a.b", "1");
+        expected.put("a.c.d", "x");
+        expected.put("a.c.e", Arrays.asList("1", "2"));
+        expected.put("f", "true");
+        expected.put("h.i", "y");
+        assertEquals(expected, config.toFlatMap());
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(config.toFlatMap().keySet()));
+    }
+}
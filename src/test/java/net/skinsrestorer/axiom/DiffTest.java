@@ -0,0 +1,44 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiffTest {
+    @Test
+    @DisplayName("Test diffing two configurations")
+    public void diffTest() throws IOException {
+        AxiomConfiguration from = new AxiomConfiguration();
+        from.load("a:\n  b: 1\n  c: 2\n  d:\n    e: true\nf: x # old\ng: [1, 2]\nh: 1\n");
+        AxiomConfiguration to = new AxiomConfiguration();
+        to.load("a:\n  b: 1\n  c: 3\n  n: new\nf: x # new\ng: [1, 3]\nh:\n  i: 1\n");
+
+        AxiomDiff diff = from.diff(to);
+        assertEquals(Arrays.asList("a.n"), diff.getAdded());
+        assertEquals(Arrays.asList("a.d"), diff.getRemoved());
+        assertEquals(Arrays.asList("a.c", "g", "h"), diff.getChanged());
+        assertEquals(Arrays.asList("f"), diff.getCommentsChanged());
+        assertFalse(diff.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test that identical configurations have no diff")
+    public void emptyDiffTest() throws IOException {
+        AxiomConfiguration from = new AxiomConfiguration();
+        from.load("# Header\na:\n  b: 1\n");
+        AxiomConfiguration to = new AxiomConfiguration();
+        to.load("a:\n  b: 1\n");
+
+        AxiomDiff diff = from.diff(to);
+        assertTrue(diff.isEmpty());
+        assertEquals(Collections.singletonList("a"), diff.getCommentsChanged());
+        assertTrue(to.diff(to).getCommentsChanged().isEmpty());
+    }
+}
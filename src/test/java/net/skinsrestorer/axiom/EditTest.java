@@ -0,0 +1,83 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EditTest {
+    @Test
+    @DisplayName("Test applying a batch of changes")
+    public void batchTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a:\n  b: 1 # comment\n  c: 2\nd: 3\n");
+
+        config.edit()
+                .set("a.b", 10)
+                .remove("a.c")
+                .set("a.e.f", "new")
+                .set("g", true)
+                .remove("missing.key")
+                .commit();
+
+        assertEquals("a:\n  b: 10 # comment\n  e:\n    f: new\nd: 3\ng: true\n", config.saveToString());
+    }
+
+    @Test
+    @DisplayName("Test that later operations win like sequential sets")
+    public void orderTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a:\n  b: 1\nd:\n  e: 1\n");
+
+        config.edit()
+                .set("a.b", 2)
+                .set("a", 5)
+                .set("x", 1)
+                .remove("x")
+                .set("y.z", 1)
+                .remove("y")
+                .set("y.w", 2)
+                .remove("d")
+                .remove("d.e")
+                .commit();
+
+        assertEquals(5, config.getInt("a"));
+        assertNull(config.getString("x"));
+        assertNull(config.getString("y.z"));
+        assertEquals(2, config.getInt("y.w"));
+        assertNull(config.getSection("d"));
+    }
+
+    @Test
+    @DisplayName("Test that a batch which can't be applied changes nothing")
+    public void conflictTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        String data = "a: 1\nb:\n  c: 2\n";
+        config.load(data);
+
+        AxiomEdit edit = config.edit()
+                .set("b.c", 3)
+                .set("new", 4)
+                .set("a.x", 5);
+
+        assertThrows(IllegalStateException.class, edit::commit);
+        assertEquals(data, config.saveToString());
+    }
+
+    @Test
+    @DisplayName("Test that edits of a concurrent configuration are published at once")
+    public void concurrentTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.enableConcurrentMode();
+        config.load("a: 1\n");
+
+        config.edit().set("a", 2).set("b", 3).commit();
+
+        assertEquals(2, config.getInt("a"));
+        assertEquals(3, config.getInt("b"));
+    }
+}
@@ -0,0 +1,103 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LayeredTest {
+    @Test
+    @DisplayName("Test resolving lookups through layers")
+    public void layeredTest() throws IOException {
+        AxiomConfiguration user = new AxiomConfiguration();
+        user.load("a:\n  b: user\nc: 1\n");
+        AxiomConfiguration server = new AxiomConfiguration();
+        server.load("a:\n  d: server\nc: 2\ne: server\n");
+        AxiomConfiguration defaults = new AxiomConfiguration();
+        defaults.load("a:\n  b: default\n  f: default\ne: default\ng:\n  h: default\nc:\n  i: hidden\n");
+
+        AxiomLayeredConfiguration layered = new AxiomLayeredConfiguration(user, server, defaults);
+        assertEquals("user", layered.getString("a.b"));
+        assertEquals("server", layered.getString("a.d"));
+        assertEquals("default", layered.getString("a.f"));
+        assertEquals("server", layered.getString("e"));
+        assertEquals("default", layered.getString("g.h"));
+        assertEquals(Arrays.asList("a", "c", "e", "g"), layered.getKeys());
+        assertEquals(Arrays.asList("b", "d", "f"), layered.getKeys("a"));
+
+        // Like merge, a section of the defaults replaces values that aren't sections
+        assertEquals(0, layered.getInt("c", 0));
+        assertEquals("hidden", layered.getString("c.i"));
+        assertEquals(Arrays.asList("i"), layered.getKeys("c"));
+
+        // Memoized lookups follow changes of the layers
+        user.set("e", "user");
+        assertEquals("user", layered.getString("e"));
+        server.load("a:\n  d: reloaded\n");
+        assertEquals("reloaded", layered.getString("a.d"));
+        assertEquals("default", layered.getString("a.f"));
+    }
+
+    @Test
+    @DisplayName("Test that lookups give the same values as merging the layers")
+    public void mergeSemanticsTest() throws IOException {
+        AxiomConfiguration user = new AxiomConfiguration();
+        user.load("a:\n  x: 1\nb: scalar\nc: [1]\nd:\n  e: user\n");
+        AxiomConfiguration server = new AxiomConfiguration();
+        server.load("a: hidden\nb:\n  y: server\nc:\n  z: server\nd: hidden\n");
+        AxiomConfiguration defaults = new AxiomConfiguration();
+        defaults.load("a:\n  w: default\nb:\n  v: default\nc: hidden\nd:\n  f: default\n");
+
+        AxiomLayeredConfiguration layered = new AxiomLayeredConfiguration(user, server, defaults);
+        AxiomConfiguration merged = new AxiomConfiguration();
+        merged.load(user.saveToString());
+        merged.merge(server);
+        merged.merge(defaults);
+        assertEquals(merged.saveToString(), layered.materialize().saveToString());
+
+        for (String path : Arrays.asList("a.x", "a.w", "b", "b.y", "b.v", "c", "c.z", "d.e", "d.f")) {
+            assertEquals(merged.getNode(path).map(LayeredTest::describe), layered.getNode(path).map(LayeredTest::describe), path);
+        }
+        assertEquals("server", layered.getString("b.y"));
+        assertEquals("default", layered.getString("a.w"));
+        assertEquals("server", layered.getString("c.z"));
+        assertEquals(Arrays.asList("z"), layered.getKeys("c"));
+    }
+
+    @Test
+    @DisplayName("Test materializing layers")
+    public void materializeTest() throws IOException {
+        AxiomConfiguration user = new AxiomConfiguration();
+        user.load("a:\n  b: user\n");
+        AxiomConfiguration defaults = new AxiomConfiguration();
+        defaults.load("# Defaults\na:\n  b: default # Comment\n  c: default\nd: [x]\n");
+
+        AxiomConfiguration merged = new AxiomLayeredConfiguration(user, defaults).materialize();
+        assertEquals("a:\n  b: user\n  c: default\nd: [x]\n", merged.saveToString());
+        assertEquals("a:\n  b: user\n", user.saveToString());
+
+        // Materializing gives the same tree as merging the defaults into a copy
+        AxiomConfiguration copy = new AxiomConfiguration();
+        copy.load(user.saveToString());
+        copy.merge(defaults);
+        assertEquals(copy.saveToString(), merged.saveToString());
+
+        merged.set("a.c", "changed");
+        merged.set("d", Arrays.asList("y"));
+        assertEquals("default", defaults.getString("a.c"));
+        assertEquals(Arrays.asList("x"), defaults.getStringList("d"));
+    }
+
+    private static String describe(Node node) {
+        if (node instanceof ScalarNode) {
+            return ((ScalarNode) node).getValue();
+        }
+        return node instanceof MappingNode ? "section" : "list";
+    }
+}
@@ -0,0 +1,79 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazyLoadTest {
+    private static final String DATA = "# Header\n\n"
+            + "a: 1 # inline\n"
+            + "# about b\n"
+            + "b:\n  x: 2\n  # trailing in b\n"
+            + "\n"
+            + "c: |\n  literal\n\n"
+            + "d: [1, 2]\n"
+            + "e:\n  - \"\\U0001F600\"\n  - two\n"
+            + "# Footer\n";
+
+    @Test
+    @DisplayName("Test that a lazily loaded configuration matches an eager one")
+    public void lazyTest() throws IOException {
+        AxiomConfiguration eager = new AxiomConfiguration();
+        eager.load(DATA);
+
+        AxiomConfiguration lazy = new AxiomConfiguration();
+        lazy.setLazyLoading(true);
+        lazy.load(DATA);
+        LazyMappingNode root = (LazyMappingNode) lazy.rootNode;
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), lazy.getKeys());
+        assertEquals(2, lazy.getInt("b.x"));
+        assertEquals("literal\n", lazy.getString("c"));
+        assertEquals(Arrays.asList("\uD83D\uDE00", "two"), lazy.getStringList("e"));
+        assertNull(lazy.getString("missing"));
+        assertFalse(root.isMaterialized());
+
+        for (int i = 0; i < eager.rootNode.getValue().size(); i++) {
+            assertTrue(Nodes.equal(eager.rootNode.getValue().get(i).getValueNode(), lazy.getNode(eager.getKeys().get(i)).get()));
+        }
+
+        assertEquals(eager.saveToString(), lazy.saveToString());
+        assertTrue(Nodes.equal(eager.rootNode, root));
+        assertTrue(root.isMaterialized());
+        assertEquals(eager.saveToString(), lazy.saveToString());
+    }
+
+    @Test
+    @DisplayName("Test that untouched sections are saved verbatim")
+    public void verbatimTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.setLazyLoading(true);
+        config.load("a:    1\nb:\n    x: 2\nc: [1,2]   # spaced\n");
+
+        config.set("b.x", 3);
+        assertEquals("a:    1\nb:\n  x: 3\nc: [1,2]   # spaced\n", config.saveToString());
+        assertFalse(((LazyMappingNode) config.rootNode).isMaterialized());
+
+        config.set("d", 4);
+        assertEquals("a: 1\nb:\n  x: 3\nc: [1, 2] # spaced\nd: 4\n", config.saveToString());
+    }
+
+    @Test
+    @DisplayName("Test that documents which can't be split are loaded eagerly")
+    public void fallbackTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.setLazyLoading(true);
+
+        for (String data : new String[]{"a: &x 1\nb: *x\n", "{a: 1}\n", "--- \na: 1\n", "  a: 1\n  b: 2\n"}) {
+            config.load(data);
+            assertFalse(config.rootNode instanceof LazyMappingNode, data);
+            assertEquals(1, config.getInt("a"));
+        }
+
+        assertThrows(IOException.class, () -> config.load("a: [\n"));
+    }
+}
@@ -171,4 +171,37 @@ public class MergeTest {
 
         assertEquals(file, mergable.saveToString());
     }
+
+    @Test
+    public void parallelMergeTest() throws IOException {
+        StringBuilder user = new StringBuilder();
+        StringBuilder defaults = new StringBuilder();
+        for (int section = 0; section < 200; section++) {
+            defaults.append("s").append(section).append(": # Section ").append(section).append('\n');
+            if (section % 3 != 0) {
+                user.append("s").append(section).append(":\n");
+            }
+            for (int key = 0; key < 60; key++) {
+                defaults.append("  k").append(key).append(":\n    v: ").append(key).append(" # Default\n");
+                if (section % 3 != 0 && key % 2 == 0) {
+                    user.append("  k").append(key).append(":\n    v: user\n    extra: true\n");
+                }
+            }
+        }
+
+        AxiomConfiguration defaultConfig = new AxiomConfiguration();
+        defaultConfig.load(defaults.toString());
+        AxiomConfiguration sequential = new AxiomConfiguration();
+        sequential.load(user.toString());
+        AxiomConfiguration parallel = new AxiomConfiguration();
+        parallel.load(user.toString());
+
+        MergeTask.merge(sequential.rootNode, defaultConfig.rootNode, false, true, false, false);
+        parallel.merge(defaultConfig);
+
+        assertEquals(sequential.saveToString(), parallel.saveToString());
+        assertEquals("user", parallel.getString("s1.k0.v"));
+        assertEquals(1, parallel.getInt("s1.k1.v"));
+        assertEquals(5, parallel.getInt("s0.k5.v"));
+    }
 }
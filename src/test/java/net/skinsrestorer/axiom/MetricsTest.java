@@ -0,0 +1,72 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+    @Test
+    @DisplayName("Test that the metrics listener receives measurements")
+    public void listenerTest() throws IOException {
+        RecordingListener listener = new RecordingListener();
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.setMetricsListener(listener);
+
+        String data = "a:\n  b:\n    c: 1\nd: [1, 2]\n";
+        config.load(data);
+        assertEquals(Arrays.asList("load " + data.length() + " 11 3"), listener.events);
+        listener.events.clear();
+
+        config.getInt("a.b.c");
+        config.getSection("a").getString("missing");
+        assertEquals(Arrays.asList("lookup a.b.c true", "lookup a true", "lookup missing false"), listener.events);
+        listener.events.clear();
+
+        AxiomConfiguration defaults = new AxiomConfiguration();
+        defaults.load("e: 1\n");
+        config.merge(defaults);
+        String saved = config.saveToString();
+        assertEquals(Arrays.asList("merge 3 1", "save " + saved.length()), listener.events);
+    }
+
+    @Test
+    @DisplayName("Test that the flight recorder listener can be used")
+    public void flightRecorderTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.setMetricsListener(AxiomMetricsListener.flightRecorder());
+        config.load("a: 1\n");
+
+        assertEquals(1, config.getInt("a"));
+        assertNotNull(config.saveToString());
+    }
+
+    private static class RecordingListener implements AxiomMetricsListener {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void loaded(long durationNanos, long characters, int nodes, int depth) {
+            events.add("load " + characters + " " + nodes + " " + depth);
+        }
+
+        @Override
+        public void saved(long durationNanos, long characters) {
+            events.add("save " + characters);
+        }
+
+        @Override
+        public void merged(long durationNanos, int nodes, int depth) {
+            events.add("merge " + nodes + " " + depth);
+        }
+
+        @Override
+        public void lookup(ConfigPath path, boolean hit) {
+            events.add("lookup " + path + " " + hit);
+        }
+    }
+}
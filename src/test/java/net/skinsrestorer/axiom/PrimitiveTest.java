@@ -0,0 +1,56 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveTest {
+    @Test
+    @DisplayName("Test primitive getters with defaults")
+    public void primitiveTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a:\n  int: 5\n  long: 10000000000\n  double: 1.5\n  bool: true\n  text: x\n");
+
+        assertEquals(5, config.getInt("a.int", 1));
+        assertEquals(1, config.getInt("a.missing", 1));
+        assertEquals(1, config.getInt("a", 1));
+        assertEquals(10000000000L, config.getLong("a.long", 0));
+        assertEquals(5L, config.getLong("a.int", 0));
+        assertEquals(1.5, config.getDouble("a.double", 0));
+        assertEquals(2.5, config.getDouble("a.missing", 2.5));
+        assertTrue(config.getBoolean("a.bool", false));
+        assertTrue(config.getBoolean("a.missing", true));
+        assertThrows(NumberFormatException.class, () -> config.getInt("a.text", 1));
+
+        // Cached values of other types must not leak into each other
+        assertEquals(5, config.getInt(ConfigPath.of("a.int")));
+        assertEquals(5.0, config.getDouble("a.int", 0));
+        assertEquals(5, config.getInt("a.int", 0));
+
+        config.set("a.int", 6);
+        assertEquals(6, config.getInt("a.int", 0));
+    }
+
+    @Test
+    @DisplayName("Test primitive array getters")
+    public void arrayTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("ints: [1, 2, 3]\nlongs:\n  - 10000000000\n  - [ignored]\n  - 2\ndoubles: [0.5, 2]\ntext: [a]\nscalar: 1\n");
+
+        int[] ints = config.getIntArray("ints");
+        assertArrayEquals(new int[]{1, 2, 3}, ints);
+        assertSame(ints, config.getIntArray("ints"));
+        assertArrayEquals(new long[]{10000000000L, 2}, config.getLongArray("longs"));
+        assertArrayEquals(new double[]{0.5, 2}, config.getDoubleArray("doubles"));
+        assertNull(config.getIntArray("scalar"));
+        assertNull(config.getIntArray("missing"));
+        assertThrows(NumberFormatException.class, () -> config.getIntArray("text"));
+
+        config.set("ints", Arrays.asList(4, 5));
+        assertArrayEquals(new int[]{4, 5}, config.getIntArray("ints"));
+    }
+}
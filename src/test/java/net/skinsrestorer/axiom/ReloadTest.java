@@ -0,0 +1,91 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReloadTest {
+    @Test
+    @DisplayName("Test that a reload only replaces what changed")
+    public void reloadTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a:\n  b: 1\n  c: 2\nd:\n  e: true\nf: x\n");
+
+        AxiomConfigurationSection a = config.getSection("a");
+        AxiomConfigurationSection d = config.getSection("d");
+        List<String> changed = config.reload(new StringReader("a:\n  b: 1\n  c: 3\n  n: new\nd: # comment\n  e: true\n"));
+
+        assertEquals(Arrays.asList("a.c", "a.n", "f"), changed);
+        assertEquals("a:\n  b: 1\n  c: 3\n  n: new\nd: # comment\n  e: true\n", config.saveToString());
+        assertEquals(3, a.getInt("c"));
+        assertSame(d.rootNode, config.getSection("d").rootNode);
+    }
+
+    @Test
+    @DisplayName("Test that an identical reload reports nothing")
+    public void unchangedReloadTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        String data = "a:\n  b: [1, 2]\n  c: 'x'\n";
+        config.load(data);
+
+        assertEquals(Collections.emptyList(), config.reload(new StringReader(data)));
+        assertEquals(data, config.saveToString());
+    }
+
+    @Test
+    @DisplayName("Test that reloading a file leaves the configuration in sync with it")
+    public void reloadDirtyTest() throws IOException {
+        Path file = Files.createTempDirectory("axiom").resolve("config.yml");
+        Files.write(file, "a:\n  b: 1\n".getBytes(StandardCharsets.UTF_8));
+
+        for (boolean concurrent : new boolean[]{false, true}) {
+            AxiomConfiguration config = new AxiomConfiguration();
+            if (concurrent) {
+                config.enableConcurrentMode();
+            }
+            config.load(file);
+
+            long modCount = config.context.getModCount();
+            assertEquals(Collections.emptyList(), config.reload(file));
+            assertFalse(config.isDirty());
+            assertEquals(modCount, config.context.getModCount());
+
+            config.set("a.b", 2);
+            assertTrue(config.isDirty());
+            assertEquals(Collections.singletonList("a.b"), config.reload(file));
+            assertFalse(config.isDirty());
+            assertEquals(1, config.getInt("a.b"));
+        }
+    }
+
+    @Test
+    @DisplayName("Test watching a file for changes")
+    public void watchTest() throws Exception {
+        Path file = Files.createTempDirectory("axiom").resolve("config.yml");
+        Files.write(file, "a: 1\n".getBytes(StandardCharsets.UTF_8));
+
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(file);
+
+        BlockingQueue<List<String>> changes = new LinkedBlockingQueue<>();
+        try (AxiomConfigurationWatcher ignored = config.watch(file, 50, TimeUnit.MILLISECONDS, Runnable::run, changes::add)) {
+            Files.write(file, "a: 2\nb: 3\n".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(Arrays.asList("a", "b"), changes.poll(30, TimeUnit.SECONDS));
+            assertEquals(2, config.getInt("a"));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ScalarClassifierTest {
+    @Test
+    @DisplayName("Test classifying numbers")
+    public void numberTest() {
+        assertEquals(123, ScalarClassifier.classify("123"));
+        assertEquals(-7, ScalarClassifier.classify(" -007 "));
+        assertEquals(5, ScalarClassifier.classify("+5"));
+        assertEquals(Integer.MIN_VALUE, ScalarClassifier.classify("-2147483648"));
+        assertEquals(2147483648L, ScalarClassifier.classify("2147483648"));
+        assertEquals(Long.MAX_VALUE, ScalarClassifier.classify("9223372036854775807"));
+        assertEquals(Long.MIN_VALUE, ScalarClassifier.classify("-9223372036854775808"));
+        assertEquals(new BigInteger("9223372036854775808"), ScalarClassifier.classify("9223372036854775808"));
+        assertEquals(1.5, ScalarClassifier.classify("1.5"));
+        assertEquals(-1.5e3, ScalarClassifier.classify("-1.5E+3"));
+        assertEquals(2.5e-2, ScalarClassifier.classify("2.5e-2"));
+    }
+
+    @Test
+    @DisplayName("Test classifying booleans and strings")
+    public void otherTest() {
+        assertEquals(true, ScalarClassifier.classify("true"));
+        assertEquals(false, ScalarClassifier.classify(" false\n"));
+
+        for (String value : new String[]{"", " ", "truex", "True", "1.", ".5", "1e5", "1.5e", "1.5e+", "+", "-", "1-2", "0x10", "12a", "1.2.3"}) {
+            assertSame(value, ScalarClassifier.classify(value));
+        }
+    }
+
+    @Test
+    @DisplayName("Test that widened numbers are written as numbers")
+    public void setLongTest() {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.set("a", "12345678901");
+        config.set("b", "123456789012345678901234567890");
+        config.set("c", "text");
+
+        assertEquals("a: 12345678901\nb: 123456789012345678901234567890\nc: text\n", config.saveToString());
+    }
+}
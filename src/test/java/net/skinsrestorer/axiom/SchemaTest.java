@@ -0,0 +1,80 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaTest {
+    private static final AxiomSchema SCHEMA = AxiomSchema.builder()
+            .key("database.host").type(AxiomSchema.Type.STRING).required()
+            .key("database.port").type(AxiomSchema.Type.INT).range(1, 65535)
+            .key("mode").oneOf(Mode.class)
+            .key("debug").type(AxiomSchema.Type.BOOLEAN)
+            .key("worlds").listOf(AxiomSchema.Type.STRING).range(1, 3)
+            .key("players.*.name").type(AxiomSchema.Type.STRING).required()
+            .key("players.*.level").type(AxiomSchema.Type.INT).range(0, 100)
+            .build();
+
+    @Test
+    @DisplayName("Test that a valid configuration has no violations")
+    public void validTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("database:\n  host: localhost\n  port: 3306\nmode: FAST\ndebug: false\nworlds: [a, b]\n"
+                + "players:\n  one:\n    name: One\n    level: 5\n  two:\n    name: Two\nextra: 1\n");
+
+        assertEquals(new ArrayList<>(), config.validate(SCHEMA));
+    }
+
+    @Test
+    @DisplayName("Test that every violation is reported with its position")
+    public void violationTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("database:\n  port: 70000\nmode: MEDIUM\ndebug: maybe\nworlds: [a, [b], c, d]\n"
+                + "players:\n  one:\n    level: x\n  two: 5\n");
+
+        List<AxiomSchema.Violation> violations = config.validate(SCHEMA);
+        List<String> messages = new ArrayList<>();
+        for (AxiomSchema.Violation violation : violations) {
+            messages.add(violation.getPath() + " " + violation.getMessage());
+        }
+
+        assertEquals(Arrays.asList(
+                "database.port must be between 1 and 65535",
+                "database.host is required",
+                "mode must be one of FAST, SLOW",
+                "debug must be true or false",
+                "worlds must have between 1 and 3 elements",
+                "worlds[1] must be a string",
+                "players.one.level must be an int",
+                "players.one.name is required",
+                "players.two must be a section"
+        ), messages);
+
+        assertEquals("database.port must be between 1 and 65535 (line 2, column 9)", violations.get(0).toString());
+        assertEquals(1, violations.get(1).getMark().getLine());
+        assertEquals(4, violations.get(5).getMark().getLine());
+        assertEquals(12, violations.get(5).getMark().getColumn());
+    }
+
+    @Test
+    @DisplayName("Test that missing sections with required keys are reported")
+    public void missingSectionTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("worlds: [a]\n");
+
+        List<AxiomSchema.Violation> violations = config.validate(SCHEMA);
+        assertEquals(1, violations.size());
+        assertEquals("database", violations.get(0).getPath());
+        assertEquals("is required", violations.get(0).getMessage());
+    }
+
+    public enum Mode {
+        FAST, SLOW
+    }
+}
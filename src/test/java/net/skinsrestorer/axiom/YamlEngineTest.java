@@ -0,0 +1,56 @@
+package net.skinsrestorer.axiom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class YamlEngineTest {
+    @Test
+    @DisplayName("Test that engines are shared per indentation")
+    public void sharedTest() {
+        assertSame(YamlEngine.get(2, 2), YamlEngine.get(2, 2));
+        assertNotSame(YamlEngine.get(2, 2), YamlEngine.get(4, 2));
+        assertSame(new AxiomConfiguration().getEngine(), new AxiomConfiguration(2, 2).getEngine());
+    }
+
+    @Test
+    @DisplayName("Test that sections still expose the Yaml they use")
+    public void yamlFieldTest() {
+        Yaml yaml = new Yaml();
+        assertSame(yaml, new AxiomConfigurationSection(yaml, new AxiomConfiguration().rootNode).yaml);
+        assertSame(YamlEngine.get(2, 2).getYaml(), new AxiomConfiguration().yaml);
+    }
+
+    @Test
+    @DisplayName("Test using one engine from many threads")
+    public void concurrentTest() throws Exception {
+        String expected = "a: &id001\n  b: 1\nc: *id001\nd:\n- \"x\"\n";
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> {
+                    AxiomConfiguration config = new AxiomConfiguration(2, 0);
+                    config.load("a: &x\n  b: 1\nc: *x\n");
+                    config.set("d", new String[]{"x"});
+                    config.saveToString();
+                    return config.saveToString();
+                }));
+            }
+
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -7,12 +7,22 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class YamlTest {
     @Test
@@ -173,4 +183,124 @@ public class YamlTest {
 
         assertEquals(3, config.getSection("a.b").getKeys().size());
     }
+
+    @Test
+    @DisplayName("Test lookups and updates in a wide section")
+    public void wideSectionTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+
+        StringBuilder builder = new StringBuilder("a:\n");
+        for (int i = 0; i < 1000; i++) {
+            builder.append("  k").append(i).append(": ").append(i).append('\n');
+        }
+        config.load(builder.toString());
+
+        assertEquals(500, config.getInt("a.k500"));
+        config.set("a.k500", 5);
+        assertEquals(5, config.getInt("a.k500"));
+
+        config.set("a.new", 1);
+        assertEquals(1, config.getInt("a.new"));
+
+        config.set("a.k0", null);
+        assertNull(config.getInt("a.k0"));
+        assertEquals(999, config.getInt("a.k999"));
+        assertEquals(1000, config.getSection("a").getKeys().size());
+    }
+
+    @Test
+    @DisplayName("Test that cached values follow updates")
+    public void cachedValueTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a: 1\nb: true\nl:\n- x\n- y\n");
+
+        assertEquals(1, config.getInt("a"));
+        assertEquals(1, config.getInt("a"));
+        config.set("a", 2);
+        assertEquals(2, config.getInt("a"));
+
+        assertEquals(true, config.getBoolean("b"));
+        config.set("b", false);
+        assertEquals(false, config.getBoolean("b"));
+
+        List<String> list = config.getStringList("l");
+        assertSame(list, config.getStringList("l"));
+        assertThrows(UnsupportedOperationException.class, () -> list.add("z"));
+
+        List<String> newList = new ArrayList<>();
+        newList.add("z");
+        config.set("l", newList);
+        assertEquals(newList, config.getStringList("l"));
+
+        config.load("a: 3\n");
+        assertEquals(3, config.getInt("a"));
+    }
+
+    @Test
+    @DisplayName("Test saving to and loading from a file")
+    public void saveTest() throws IOException {
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a:\n  b: true # comment\n");
+
+        Path directory = Files.createTempDirectory("axiom");
+        Path file = directory.resolve("config.yml");
+        Files.write(file, "old: content\n".getBytes());
+        config.save(file);
+
+        AxiomConfiguration loaded = new AxiomConfiguration();
+        loaded.load(file);
+        assertEquals(config.saveToString(), loaded.saveToString());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Test that new files get the default permissions")
+    public void savePermissionsTest() throws IOException {
+        Path directory = Files.createTempDirectory("axiom");
+        if (!Files.getFileStore(directory).supportsFileAttributeView("posix")) {
+            return;
+        }
+
+        Set<PosixFilePermission> defaults = Files.getPosixFilePermissions(Files.createFile(directory.resolve("reference")));
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load("a: 1\n");
+        Path file = directory.resolve("config.yml");
+        config.save(file);
+        assertEquals(defaults, Files.getPosixFilePermissions(file));
+
+        Path cache = directory.resolve("config.cache");
+        new AxiomConfiguration().load(file, cache);
+        assertEquals(defaults, Files.getPosixFilePermissions(cache));
+    }
+
+    @Test
+    @DisplayName("Test that saving an unchanged configuration doesn't touch the file")
+    public void dirtySaveTest() throws IOException {
+        Path file = Files.createTempDirectory("axiom").resolve("config.yml");
+        Files.write(file, "a: 1\nb:\n  c: 1\n".getBytes());
+        FileTime old = FileTime.fromMillis(1000000000000L);
+        Files.setLastModifiedTime(file, old);
+
+        AxiomConfiguration config = new AxiomConfiguration();
+        config.load(file);
+        assertFalse(config.isDirty());
+        config.save(file);
+        assertEquals(old, Files.getLastModifiedTime(file));
+
+        config.set("a", 1);
+        assertTrue(config.isDirty());
+        config.save(file);
+        assertFalse(config.isDirty());
+        assertEquals(old, Files.getLastModifiedTime(file));
+
+        config.getSection("b").set("c", 2);
+        config.save(file);
+        assertEquals("a: 1\nb:\n  c: 2\n", new String(Files.readAllBytes(file)));
+
+        Files.delete(file);
+        config.save(file);
+        assertEquals("a: 1\nb:\n  c: 2\n", new String(Files.readAllBytes(file)));
+    }
 }